@@ -1,11 +1,14 @@
 package com.pitang.desafiopitangapi.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
@@ -15,9 +18,30 @@ import java.util.List;
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final UserAuthenticationProvider userAuthenticationProvider;
+    private final RequestMatcher permittedRequests;
+    private final Counter missing;
+    private final Counter cheapValid;
+    private final Counter cheapInvalid;
+    private final Counter strongValid;
+    private final Counter strongInvalid;
 
-    public JwtAuthFilter(UserAuthenticationProvider userAuthenticationProvider) {
+    public JwtAuthFilter(UserAuthenticationProvider userAuthenticationProvider, MeterRegistry meterRegistry,
+                         RequestMatcher permittedRequests) {
         this.userAuthenticationProvider = userAuthenticationProvider;
+        this.permittedRequests = permittedRequests;
+        // GET requests only check the token; other methods also check that its user still exists.
+        this.missing = validations(meterRegistry, "none", "missing");
+        this.cheapValid = validations(meterRegistry, "token", "valid");
+        this.cheapInvalid = validations(meterRegistry, "token", "invalid");
+        this.strongValid = validations(meterRegistry, "user", "valid");
+        this.strongInvalid = validations(meterRegistry, "user", "invalid");
+    }
+
+    private static Counter validations(MeterRegistry meterRegistry, String check, String result) {
+        return Counter.builder("auth.token.validations")
+                .description("Bearer tokens validated by the authentication filter")
+                .tag("check", check).tag("result", result)
+                .register(meterRegistry);
     }
 
     private static final List<String> PUBLIC_ENDPOINTS = List.of(
@@ -44,19 +68,25 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7); // Remove "Bearer "
+            boolean cheap = "GET".equalsIgnoreCase(method);
             try {
                 var context = SecurityContextHolder.createEmptyContext();
                 SecurityContextHolder.setContext(context);
-                if ("GET".equalsIgnoreCase(method)) {
+                if (cheap) {
                     context.setAuthentication(userAuthenticationProvider.validateToken(token));
                 } else {
                     context.setAuthentication(userAuthenticationProvider.validateTokenStrongly(token));
                 }
+                (cheap ? cheapValid : strongValid).increment();
             } catch (RuntimeException e) {
                 // Qualquer falha na validação deve deixar o contexto limpo
                 SecurityContextHolder.clearContext();
+                (cheap ? cheapInvalid : strongInvalid).increment();
                 // Deixa o Spring tratar como 401
             }
+        } else if (!permittedRequests.matches(request)) {
+            // Só conta a falta de token onde ele é exigido
+            missing.increment();
         }
 
         filterChain.doFilter(request, response);
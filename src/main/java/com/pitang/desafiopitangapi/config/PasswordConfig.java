@@ -1,16 +1,86 @@
 package com.pitang.desafiopitangapi.config;
 
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
+/**
+ * Configures the BCrypt password encoder.
+ * <p>
+ * The strength (log2 of the number of rounds) is either fixed by {@code api.security.hash.strength} or, when it is 0,
+ * calibrated at startup: a hash is timed at the minimum strength and the highest strength whose expected time
+ * stays within {@code api.security.hash.target-time} is chosen, bounded by {@code api.security.hash.min-strength}
+ * and {@code api.security.hash.max-strength}. Each extra unit of strength doubles the hashing time.
+ * </p>
+ */
+@Slf4j
 @Component
 public class PasswordConfig {
 
+    private static final int CALIBRATION_RUNS = 3;
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final int strength;
+
+    public PasswordConfig(@Value("${api.security.hash.strength:0}") int strength,
+                          @Value("${api.security.hash.target-time:PT0.1S}") Duration targetTime,
+                          @Value("${api.security.hash.min-strength:10}") int minStrength,
+                          @Value("${api.security.hash.max-strength:14}") int maxStrength) {
+        if (strength > 0) {
+            this.strength = strength;
+        } else {
+            this.strength = calibrate(targetTime, minStrength, maxStrength);
+            log.info("BCrypt strength calibrated to {} for a target hash time of {} ms", this.strength, targetTime.toMillis());
+        }
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * Gets the strength new hashes are created with.
+     *
+     * @author Robson Rodrigues
+     * @return the BCrypt strength
+     */
+    public int strength() {
+        return strength;
+    }
+
+    /**
+     * Picks the highest strength whose expected hashing time does not exceed the target.
+     *
+     * @author Robson Rodrigues
+     * @param targetTime the expected time of one hash
+     * @param minStrength the lowest strength accepted, whatever the hashing time
+     * @param maxStrength the highest strength accepted
+     * @return the strength, between {@code minStrength} and {@code maxStrength}
+     */
+    static int calibrate(Duration targetTime, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        // The first run warms the code up and is not measured.
+        encoder.encode(CALIBRATION_PASSWORD);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        int strength = minStrength;
+        long expected = best;
+        while (strength < maxStrength && expected * 2 <= targetTime.toNanos()) {
+            strength++;
+            expected *= 2;
+        }
+        return strength;
     }
 }
@@ -1,11 +1,17 @@
 package com.pitang.desafiopitangapi.config;
 
 import com.pitang.desafiopitangapi.service.CarService;
-import lombok.AllArgsConstructor;
+import com.pitang.desafiopitangapi.service.InvalidationBus;
+import com.pitang.desafiopitangapi.service.SchedulerLockService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.OptionalInt;
+
 
 /**
  * Class responsible for executing a scheduled job to update statuses.
@@ -38,23 +44,71 @@ import org.springframework.stereotype.Component;
  * @author Robson Rodrigues
  */
 
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Slf4j
 @Component
 public class ScheduledJob {
 
+    /**
+     * Name of the cluster-wide lock that guards the car usage reset.
+     */
+    public static final String CAR_USAGE_RESET_JOB = "car-usage-reset";
+
+    /**
+     * Name of the cluster-wide lock that guards the removal of old change log entries.
+     */
+    public static final String CHANGE_LOG_PRUNE_JOB = "change-log-prune";
+
     private final CarService carService;
+    private final SchedulerLockService schedulerLockService;
+    private final InvalidationBus invalidationBus;
+
+    /**
+     * Maximum number of cars reset per transaction; {@code 0} resets all cars in a single statement.
+     */
+    @Value("${api.jobs.car-usage-reset.chunk-size:0}")
+    private int chunkSize;
+
+    /**
+     * How long the lock is held if the node running the job dies.
+     */
+    @Value("${api.jobs.car-usage-reset.lock-at-most-for:PT10M}")
+    private Duration lockAtMostFor;
+
+    /**
+     * How long the lock is kept after the job ends, covering clock skew between nodes.
+     */
+    @Value("${api.jobs.car-usage-reset.lock-at-least-for:PT1M}")
+    private Duration lockAtLeastFor;
+
     /**
-     * Executes the job every day at 7:00 AM.
+     * Executes the job every day at 7:00 AM, on a single node of the cluster.
      */
     @Scheduled(cron = "0 0 7 * * *", zone = "America/Sao_Paulo")
     public void executeJob() {
         try {
-            int updatedCars = carService.resetCarUsage();
-            log.info("Scheduled job executed: {} cars have been reset to not be in use.", updatedCars);
+            OptionalInt updatedCars = schedulerLockService.runExclusively(CAR_USAGE_RESET_JOB, lockAtMostFor,
+                    lockAtLeastFor, () -> carService.resetCarUsage(chunkSize));
+            if (updatedCars.isPresent())
+                log.info("Scheduled job executed: {} cars have been reset to not be in use.", updatedCars.getAsInt());
+            else
+                log.info("Scheduled job skipped: the car usage reset is held by another node.");
         } catch (Exception e) {
             log.error("Error while resetting car usage: {}", e.getMessage(), e);
         }
     }
 
+    /**
+     * Removes the change log entries older than {@code api.change-log.retention}, on a single node of the cluster.
+     */
+    @Scheduled(fixedDelayString = "${api.change-log.prune-interval:PT10M}")
+    public void pruneChangeLog() {
+        try {
+            schedulerLockService.runExclusively(CHANGE_LOG_PRUNE_JOB, lockAtMostFor, Duration.ZERO, invalidationBus::prune)
+                    .ifPresent(removed -> log.debug("Change log pruned: {} entries removed.", removed));
+        } catch (Exception e) {
+            log.error("Error while pruning the change log: {}", e.getMessage(), e);
+        }
+    }
+
 }
@@ -0,0 +1,74 @@
+package com.pitang.desafiopitangapi.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Configures the regions of the Hibernate second-level and query caches, backed by Caffeine through JCache.
+ * <p>
+ * Every application context gets its own cache manager, so two contexts in the same JVM never share
+ * cached rows. The entity, collection and query regions are bounded by {@code api.jpa.cache.*.max-size} and
+ * expire {@code api.jpa.cache.ttl} after they were written or, with {@code api.jpa.cache.expiry=access},
+ * last read. The update timestamps region is never evicted, as Hibernate requires, and holds one entry per table.
+ * Hibernate fails at startup if it needs a region not created here.
+ * </p>
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String USERS_REGION = "users";
+    public static final String USER_CARS_REGION = "users.cars";
+    public static final String CARS_REGION = "cars";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${api.jpa.cache.entities.max-size:10000}") long entitiesMaxSize,
+                                              @Value("${api.jpa.cache.queries.max-size:10000}") long queriesMaxSize,
+                                              @Value("${api.jpa.cache.ttl:PT10M}") Duration ttl,
+                                              @Value("${api.jpa.cache.expiry:write}") String expiry) {
+        boolean afterAccess = switch (expiry) {
+            case "write" -> false;
+            case "access" -> true;
+            default -> throw new IllegalArgumentException("Invalid api.jpa.cache.expiry: " + expiry);
+        };
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(USERS_REGION, bounded(entitiesMaxSize, ttl, afterAccess));
+        cacheManager.createCache(USER_CARS_REGION, bounded(entitiesMaxSize, ttl, afterAccess));
+        cacheManager.createCache(CARS_REGION, bounded(entitiesMaxSize, ttl, afterAccess));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                bounded(queriesMaxSize, ttl, afterAccess));
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestamps);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, Duration ttl, boolean afterAccess) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        if (afterAccess)
+            configuration.setExpireAfterAccess(OptionalLong.of(ttl.toNanos()));
+        else
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -1,8 +1,13 @@
 package com.pitang.desafiopitangapi.config;
 import static org.springframework.boot.autoconfigure.security.servlet.PathRequest.toH2Console;
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -13,6 +18,11 @@ import org.springframework.security.config.annotation.web.configurers.HeadersCon
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @RequiredArgsConstructor
 @Configuration
@@ -21,6 +31,7 @@ public class SecurityConfig {
 
     private final UserAuthenticationEntryPoint userAuthenticationEntryPoint;
     private final UserAuthenticationProvider userAuthenticationProvider;
+    private final MeterRegistry meterRegistry;
     private static final String[] AUTH_WHITELIST = {
     		"/api/v1/auth/**",
     		"/v3/api-docs/**",
@@ -30,25 +41,39 @@ public class SecurityConfig {
     		"/webjars/**", 
     		"/swagger-ui/**"    
     		};
-    
+
+    /**
+     * Requests allowed without a token. Health and Prometheus are only exposed on the management port
+     * ({@code management.server.port}), which is not published with the API.
+     */
+    private static final RequestMatcher PERMITTED_REQUESTS = permittedRequests();
+
+    private static RequestMatcher permittedRequests() {
+        List<RequestMatcher> matchers = new ArrayList<>(List.of(
+                antMatcher(HttpMethod.POST, "/signin"),
+                antMatcher(HttpMethod.GET, "/users"),
+                antMatcher(HttpMethod.POST, "/users"),
+                antMatcher(HttpMethod.GET, "/users/{id}"),
+                antMatcher(HttpMethod.DELETE, "/users/{id}"),
+                antMatcher(HttpMethod.PUT, "/users/{id}"),
+                EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class),
+                toH2Console()));
+        for (String pattern : AUTH_WHITELIST)
+            matchers.add(antMatcher(pattern));
+        return new OrRequestMatcher(matchers);
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .exceptionHandling(customizer -> customizer.authenticationEntryPoint(userAuthenticationEntryPoint))
-                .addFilterBefore(new JwtAuthFilter(userAuthenticationProvider), BasicAuthenticationFilter.class)
+                .addFilterBefore(new JwtAuthFilter(userAuthenticationProvider, meterRegistry, PERMITTED_REQUESTS), BasicAuthenticationFilter.class)
                 .csrf(AbstractHttpConfigurer::disable).headers(httpSecurityHeadersConfigurer -> {
         			httpSecurityHeadersConfigurer.frameOptions(HeadersConfigurer.FrameOptionsConfig::disable);
         		})
                 .sessionManagement(customizer -> customizer.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.authorizeHttpRequests((requests) -> requests
-						.requestMatchers(HttpMethod.POST, "/signin").permitAll()
-						.requestMatchers(HttpMethod.GET, "/users").permitAll()
-						.requestMatchers(HttpMethod.POST, "/users").permitAll()
-						.requestMatchers(HttpMethod.GET, "/users/{id}").permitAll()
-						.requestMatchers(HttpMethod.DELETE, "/users/{id}").permitAll()
-						.requestMatchers(HttpMethod.PUT, "/users/{id}").permitAll()
-						.requestMatchers(AUTH_WHITELIST).permitAll()
-						.requestMatchers(toH2Console()).permitAll()
+						.requestMatchers(PERMITTED_REQUESTS).permitAll()
 						.anyRequest().authenticated())
         ;
         return http.build();
@@ -0,0 +1,77 @@
+package com.pitang.desafiopitangapi.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.BaseSessionEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate session listener that counts and times the JDBC statements of each session and, when the session
+ * is closed, records them under the endpoint that opened it.
+ * <p>
+ * Registered through {@code hibernate.session.events.auto}, so Hibernate creates one instance per session.
+ * Since the session is kept open for the whole request, {@code http.server.requests.sql.statements} and
+ * {@code http.server.requests.sql.time} give the number of statements and the database time of each request,
+ * tagged like {@code http.server.requests}. Sessions opened outside a request are tagged {@code uri=none}.
+ * </p>
+ */
+public class SqlMetricsSessionListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private int statements;
+    private long nanos;
+    private long start;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        statements++;
+        nanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        statements++;
+        nanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public void end() {
+        if (statements == 0)
+            return;
+        String uri = "none";
+        String method = "none";
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            Object pattern = attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                    RequestAttributes.SCOPE_REQUEST);
+            uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            method = attributes.getRequest().getMethod();
+        }
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("JDBC statements executed while serving a request")
+                .tag("uri", uri).tag("method", method)
+                .register(Metrics.globalRegistry)
+                .record(statements);
+        Timer.builder("http.server.requests.sql.time")
+                .description("Time spent executing JDBC statements while serving a request")
+                .tag("uri", uri).tag("method", method)
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,72 @@
+package com.pitang.desafiopitangapi.config;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+
+/**
+ * Holds the JWT signing algorithm and verifiers shared by {@link UserAuthenticationProvider}
+ * and {@link TokenService}.
+ * <p>
+ * {@link Algorithm} and {@link JWTVerifier} are immutable and thread-safe, so they are built
+ * once at startup instead of on every request.
+ * </p>
+ */
+@Component
+public class TokenCrypto {
+
+    /**
+     * Issuer claim written and required by {@link TokenService}.
+     */
+    public static final String ISSUER = "desafio-pitang-api";
+
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final JWTVerifier issuerVerifier;
+
+    public TokenCrypto(@Value("${api.security.token.secret}") String secretKey) {
+        // this is to avoid having the raw secret key available in the JVM
+        this.algorithm = Algorithm.HMAC256(Base64.getEncoder().encodeToString(secretKey.getBytes()));
+        this.verifier = JWT.require(algorithm).build();
+        this.issuerVerifier = JWT.require(algorithm).withIssuer(ISSUER).build();
+    }
+
+    /**
+     * Gets the shared HMAC256 algorithm used to sign tokens.
+     *
+     * @author Robson Rodrigues
+     * @return the signing algorithm
+     */
+    public Algorithm algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Verifies the signature and the registered claims (such as {@code exp}) of the given token.
+     *
+     * @author Robson Rodrigues
+     * @param token the JWT token to be verified
+     * @return the decoded token
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException if the token is invalid or expired
+     */
+    public DecodedJWT verify(String token) {
+        return verifier.verify(token);
+    }
+
+    /**
+     * Verifies the given token and requires the {@link #ISSUER} claim.
+     *
+     * @author Robson Rodrigues
+     * @param token the JWT token to be verified
+     * @return the decoded token
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException if the token is invalid, expired or has another issuer
+     */
+    public DecodedJWT verifyWithIssuer(String token) {
+        return issuerVerifier.verify(token);
+    }
+}
@@ -1,11 +1,11 @@
 package com.pitang.desafiopitangapi.config;
 
 import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.pitang.desafiopitangapi.domain.model.User;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -17,10 +17,10 @@ import java.time.ZoneOffset;
  * Service class responsible for generating, verifying, and extracting JWT tokens.
  */
 @Service
+@RequiredArgsConstructor
 public class TokenService {
 
-    @Value("${api.security.token.secret}")
-    private String secretKey;
+    private final TokenCrypto tokenCrypto;
 
     @Value("${api.security.token.expire.minutes}")
     private Long expireMinutes;
@@ -35,13 +35,11 @@ public class TokenService {
      */
     public String generateToken(User user){
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secretKey);
-
             String token = JWT.create()
-                    .withIssuer("desafio-pitang-api")
+                    .withIssuer(TokenCrypto.ISSUER)
                     .withSubject(user.getLogin())
                     .withExpiresAt(this.generateExpirationDate())
-                    .sign(algorithm);
+                    .sign(tokenCrypto.algorithm());
             return token;
         } catch (JWTCreationException exception) {
             throw new RuntimeException("Authentication error");
@@ -65,12 +63,7 @@ public class TokenService {
      */
     public String verifyToken(String token){
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secretKey);
-            return JWT.require(algorithm)
-                    .withIssuer("desafio-pitang-api")
-                    .build()
-                    .verify(token)
-                    .getSubject();
+            return tokenCrypto.verifyWithIssuer(token).getSubject();
         } catch (JWTVerificationException exception) {
             return null;
         }
@@ -1,9 +1,7 @@
 package com.pitang.desafiopitangapi.config;
 
-import java.util.Base64;
 import java.util.Collections;
 import java.util.Date;
-import java.util.UUID;
 
 
 import com.pitang.desafiopitangapi.domain.dto.UserDTO;
@@ -15,8 +13,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 
 import com.auth0.jwt.JWT;
-import com.auth0.jwt.JWTVerifier;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
 
 import jakarta.annotation.PostConstruct;
@@ -24,58 +20,67 @@ import jakarta.annotation.PostConstruct;
 @Configuration
 public class UserAuthenticationProvider {
 
-	@Value("${api.security.token.secret}")
-	private String secretKey;
-
 	@Value("${api.security.token.expiration}")
 	private String expiration;
 
 	@Autowired
 	private UserService userService;
 
-	@PostConstruct
-	protected void init() {
-		// this is to avoid having the raw secret key available in the JVM
-		secretKey = Base64.getEncoder().encodeToString(secretKey.getBytes());
-	}
+	@Autowired
+	private TokenCrypto tokenCrypto;
 
-	public String createToken(UserDTO user) {
-		Date now = new Date();
-		int expirationToken = 3600000; // 1 hour
+	@Autowired
+	private VerifiedTokenCache verifiedTokenCache;
+
+	private int expirationToken = 3600000; // 1 hour
 
+	@PostConstruct
+	protected void init() {
 		try {
 			expirationToken = Integer.parseInt(expiration);
 		} catch (NumberFormatException e) {
 		}
+	}
 
+	public String createToken(UserDTO user) {
+		Date now = new Date();
 		Date validity = new Date(now.getTime() + expirationToken);
 
-		Algorithm algorithm = Algorithm.HMAC256(secretKey);
 		return JWT.create().withSubject(user.getLogin()).withIssuedAt(now).withExpiresAt(validity)
 				.withClaim("id", user.getId().toString()).withClaim("firstName", user.getFirstName())
-				.withClaim("lastName", user.getLastName()).sign(algorithm);
+				.withClaim("lastName", user.getLastName()).sign(tokenCrypto.algorithm());
 	}
 
+	/**
+	 * Validates the token signature and claims, reusing the result of a previous verification
+	 * of the same token while it has not expired. A new authentication is returned on every call.
+	 *
+	 * @param token the raw JWT token
+	 * @return the authentication built from the token claims
+	 */
 	public Authentication validateToken(String token) {
-		Algorithm algorithm = Algorithm.HMAC256(secretKey);
-
-		JWTVerifier verifier = JWT.require(algorithm).build();
-
-		DecodedJWT decoded = verifier.verify(token);
-
-		UserDTO user = new UserDTO(decoded.getClaim("id").asString(), decoded.getSubject());
-
+		UserPrincipal user = verifiedTokenCache.get(token);
+		if (user == null) {
+			DecodedJWT decoded = tokenCrypto.verify(token);
+			user = new UserPrincipal(decoded.getClaim("id").asString(), decoded.getSubject());
+			verifiedTokenCache.put(token, user, decoded.getExpiresAtAsInstant());
+		}
 		return new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList());
 	}
 
+	/**
+	 * Validates the token like {@link #validateToken(String)} and also checks that its user still exists,
+	 * which is required for requests that change data.
+	 *
+	 * @param token the raw JWT token
+	 * @return the authentication built from the token claims
+	 * @throws com.pitang.desafiopitangapi.exceptions.InvalidTokenException if the user no longer exists
+	 */
 	public Authentication validateTokenStrongly(String token) {
-		Algorithm algorithm = Algorithm.HMAC256(secretKey);
-
-		JWTVerifier verifier = JWT.require(algorithm).build();
-
-		DecodedJWT decoded = verifier.verify(token);
+		Authentication authentication = validateToken(token);
+		UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
 
-		return new UsernamePasswordAuthenticationToken(userService.findByLogin(decoded.getSubject()), null,
-				Collections.emptyList());
+		userService.findByLogin(user.login());
+		return authentication;
 	}
 }
@@ -0,0 +1,18 @@
+package com.pitang.desafiopitangapi.config;
+
+import java.security.Principal;
+
+/**
+ * Immutable security principal built by {@link JwtAuthFilter} from the claims of a validated token.
+ * Carries the user id so services can query by it without resolving the user by login first.
+ *
+ * @param id the {@code id} claim of the token
+ * @param login the subject of the token
+ */
+public record UserPrincipal(String id, String login) implements Principal {
+
+    @Override
+    public String getName() {
+        return login;
+    }
+}
@@ -0,0 +1,131 @@
+package com.pitang.desafiopitangapi.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Bounded, concurrent cache of tokens whose signature has already been verified.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the raw token, so a tampered token never matches
+ * a cached one, and each entry expires exactly at the token's {@code exp} claim. Only the immutable
+ * {@link UserPrincipal} is cached; callers build a new authentication for each request.
+ * </p>
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private final Clock clock;
+    private final Cache<String, VerifiedToken> cache;
+
+    @Autowired
+    public VerifiedTokenCache(@Value("${api.security.token.cache.max-size:10000}") long maxSize) {
+        this(maxSize, Clock.systemUTC());
+    }
+
+    VerifiedTokenCache(long maxSize, Clock clock) {
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(clock))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Publishes the hit, miss and eviction statistics of the cache as {@code cache.*} meters.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "verified.tokens");
+    }
+
+    /**
+     * Retrieves the principal previously built for the given token.
+     *
+     * @author Robson Rodrigues
+     * @param token the raw JWT token
+     * @return the cached principal, or {@code null} if the token is unknown or expired
+     */
+    public UserPrincipal get(String token) {
+        String key = digest(token);
+        VerifiedToken verified = cache.getIfPresent(key);
+        if (verified == null)
+            return null;
+        if (!verified.expiresAt().isAfter(clock.instant())) {
+            cache.invalidate(key);
+            return null;
+        }
+        return verified.principal();
+    }
+
+    /**
+     * Stores the principal built for a verified token until the token expires.
+     * Tokens without an expiration date are not cached.
+     *
+     * @author Robson Rodrigues
+     * @param token the raw JWT token
+     * @param principal the principal built from the token claims
+     * @param expiresAt the value of the token's {@code exp} claim
+     */
+    public void put(String token, UserPrincipal principal, Instant expiresAt) {
+        if (expiresAt == null || !expiresAt.isAfter(clock.instant()))
+            return;
+        cache.put(digest(token), new VerifiedToken(principal, expiresAt));
+    }
+
+    /**
+     * Gets the hit, miss and eviction statistics of the cache.
+     *
+     * @author Robson Rodrigues
+     * @return a snapshot of the cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    record VerifiedToken(UserPrincipal principal, Instant expiresAt) {
+    }
+
+    private record TokenExpiry(Clock clock) implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(clock.instant(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
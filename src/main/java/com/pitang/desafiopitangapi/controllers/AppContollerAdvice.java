@@ -3,6 +3,8 @@ package com.pitang.desafiopitangapi.controllers;
 import com.pitang.desafiopitangapi.domain.model.ApiError;
 import com.pitang.desafiopitangapi.exceptions.BusinessException;
 import com.pitang.desafiopitangapi.exceptions.InvalidTokenException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -10,9 +12,16 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class AppContollerAdvice {
 
+	/**
+	 * Seconds a client refused because the server is saturated should wait before retrying.
+	 */
+	private static final String RETRY_AFTER_SECONDS = "1";
+
 	@ExceptionHandler(BusinessException.class)
 	public ResponseEntity<ApiError> handleAppGenericException(BusinessException ex) {
 		ApiError apiError = ApiError.builder().message(ex.getMessage()).errorCode(ex.getStatus().value()).build();
+		if (ex.getStatus() == HttpStatus.SERVICE_UNAVAILABLE)
+			return ResponseEntity.status(ex.getStatus()).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(apiError);
 		return new ResponseEntity<>(apiError, ex.getStatus());
 	}
 
@@ -4,11 +4,15 @@ import com.pitang.desafiopitangapi.domain.dto.CarDTO;
 import com.pitang.desafiopitangapi.exceptions.BusinessException;
 import com.pitang.desafiopitangapi.domain.model.Car;
 import com.pitang.desafiopitangapi.service.CarService;
+import com.pitang.desafiopitangapi.service.ExportFormat;
+import com.pitang.desafiopitangapi.service.ExportService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -22,6 +26,7 @@ import java.util.List;
 public class CarController {
 
     private final CarService carService;
+    private final ExportService exportService;
 
     /**
      * Registers a new car in the system.
@@ -38,17 +43,48 @@ public class CarController {
     }
 
     /**
-     * @author Robson Rodrigues
-     * Retrieves all cars associated with the currently logged-in user.
+     * Retrieves all cars associated with the currently logged-in user, with the ETag of the fleet.
+     * The ETag is read first, with one query on the user row; when it matches {@code If-None-Match}
+     * a {@code 304 Not Modified} is returned without loading the cars. Otherwise the cars are served
+     * from the fleet cache while it holds them at the same ETag.
      *
      * @author Robson Rodrigues
+     * @param ifNoneMatch The ETags the client already has, may be null.
      * @param request The HTTP request containing authentication information.
-     * @return A {@link ResponseEntity} containing a list of cars.
+     * @return A {@link ResponseEntity} containing a list of cars, or an empty {@code NOT_MODIFIED} response.
      */
     @GetMapping
-    public ResponseEntity<List<CarDTO>> findAllByLoggedUser(HttpServletRequest request) {
-        List<CarDTO> listCar = carService.findAllByLoggedUser(request);
-        return ResponseEntity.ok(listCar);
+    public ResponseEntity<List<CarDTO>> findAllByLoggedUser(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                            String ifNoneMatch,
+                                                            HttpServletRequest request) {
+        // Read before the cars: a change in between yields an older ETag, which only costs the client a refetch.
+        String eTag = carService.findFleetETag(request);
+        if (ETags.matches(ifNoneMatch, eTag))
+            return ETags.notModified(eTag);
+        List<CarDTO> listCar = carService.findAllByLoggedUser(request, eTag);
+        return ResponseEntity.ok().eTag(eTag).body(listCar);
+    }
+
+    /**
+     * Exports the cars of the logged-in user as a CSV or NDJSON attachment streamed from the database,
+     * compressed with gzip when the client accepts it.
+     *
+     * @author Robson Rodrigues
+     * @param format The format of the export, {@code csv} (default) or {@code ndjson}.
+     * @param acceptEncoding The encodings accepted by the client.
+     * @param request The HTTP request containing authentication information.
+     * @return A {@link ResponseEntity} whose body writes the export directly to the response.
+     * @throws BusinessException if the format is not supported.
+     */
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                        String acceptEncoding,
+                                                        HttpServletRequest request) throws BusinessException {
+        // The body is written on another thread, where the security context is no longer available.
+        String userId = carService.getPrincipal(request).id();
+        return ExportResponse.of("cars", ExportFormat.of(format), acceptEncoding,
+                (exportFormat, out) -> exportService.exportCars(userId, exportFormat, out));
     }
 
     /**
@@ -80,6 +116,21 @@ public class CarController {
         return ResponseEntity.ok(carService.update(id, car, request));
     }
 
+    /**
+     * Marks a car of the logged-in user as the one in use and increments its usage count.
+     * Any other car of the user in use is released in the same transaction.
+     *
+     * @author Robson Rodrigues
+     * @param id The ID of the car to be used.
+     * @param request The HTTP request containing authentication information.
+     * @return A {@link ResponseEntity} containing the car in use.
+     * @throws BusinessException if the car is not found or does not belong to the logged-in user.
+     */
+    @PostMapping("{id}/use")
+    public ResponseEntity<CarDTO> use(@PathVariable String id, HttpServletRequest request) throws BusinessException {
+        return ResponseEntity.ok(Car.toDTO(carService.use(id, request)));
+    }
+
     /**
      * Deletes a car by its ID.
      *
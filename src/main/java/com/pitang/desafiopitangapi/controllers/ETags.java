@@ -0,0 +1,48 @@
+package com.pitang.desafiopitangapi.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Handles {@code If-None-Match} for the endpoints whose ETag can be read without loading the response body.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Checks whether an {@code If-None-Match} header matches the current ETag, using the weak comparison
+     * the header requires.
+     *
+     * @author Robson Rodrigues
+     * @param ifNoneMatch The {@code If-None-Match} header of the request, may be null.
+     * @param eTag The current quoted ETag, may be null if the resource does not exist.
+     * @return {@code true} if the client already has the current version.
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null)
+            return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*"))
+                return true;
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if (tag.equals(eTag))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Creates the body-less {@code 304 Not Modified} response.
+     *
+     * @author Robson Rodrigues
+     * @param eTag The current quoted ETag.
+     * @return A {@link ResponseEntity} with status {@code NOT_MODIFIED} and the ETag.
+     */
+    static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.pitang.desafiopitangapi.controllers;
+
+import com.pitang.desafiopitangapi.service.ExportFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds the streamed responses of the export endpoints, compressing them with gzip when the client accepts it.
+ */
+final class ExportResponse {
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+    private static final Pattern ZERO_QUALITY = Pattern.compile("0(\\.0{0,3})?");
+
+    private ExportResponse() {
+    }
+
+    /**
+     * Functional interface for the service call writing an export to a stream.
+     */
+    @FunctionalInterface
+    interface Writer {
+        void write(ExportFormat format, OutputStream out) throws IOException;
+    }
+
+    /**
+     * Creates the response of an export as an attachment.
+     *
+     * @author Robson Rodrigues
+     * @param name The name of the file, without extension.
+     * @param format The format of the export.
+     * @param acceptEncoding The {@code Accept-Encoding} header of the request, may be null.
+     * @param writer The call writing the export.
+     * @return A {@link ResponseEntity} whose body streams the export.
+     */
+    static ResponseEntity<StreamingResponseBody> of(String name, ExportFormat format, String acceptEncoding, Writer writer) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.extension()).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip)
+            return response.body(out -> writer.write(format, out));
+
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(out -> {
+            // syncFlush makes every flush of the writer reach the client instead of waiting in the deflater.
+            GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE, true);
+            writer.write(format, compressed);
+            compressed.finish();
+        });
+    }
+
+    /**
+     * Checks whether an {@code Accept-Encoding} header accepts gzip, either by name or through {@code *},
+     * with a non-zero quality.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q="))
+                    accepted = !ZERO_QUALITY.matcher(parameter.substring(2).trim()).matches();
+            }
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip"))
+                return accepted;
+            if (name.equals("*"))
+                wildcard = accepted;
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+}
@@ -2,15 +2,16 @@ package com.pitang.desafiopitangapi.controllers;
 
 import com.pitang.desafiopitangapi.config.UserAuthenticationProvider;
 import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.dto.VersionedDTO;
 import com.pitang.desafiopitangapi.domain.mapper.UserMapper;
 import com.pitang.desafiopitangapi.domain.model.User;
 import com.pitang.desafiopitangapi.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -27,16 +28,26 @@ public class MeController {
     private final UserAuthenticationProvider userAuthenticationProvider;
     private final UserMapper userMapper;
     /**
-     * Retrieves the details of the currently logged-in user.
+     * Retrieves the details of the currently logged-in user, with the ETag of the user and their cars.
+     * When {@code If-None-Match} is sent, the ETag is read first with one query on the user row and
+     * a {@code 304 Not Modified} is returned on a match, without loading the user.
      *
      * @author Robson Rodrigues
+     * @param ifNoneMatch The ETags the client already has, may be null.
      * @param request The HTTP request containing authentication information.
-     * @return A {@link ResponseEntity} containing the logged-in user's details in a {@link UserDTO} object.
+     * @return A {@link ResponseEntity} containing the logged-in user's details in a {@link UserDTO} object,
+     * or an empty {@code NOT_MODIFIED} response.
      */
     @GetMapping
-    ResponseEntity<UserDTO> findByMe(HttpServletRequest request) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return ResponseEntity.ok(userService.findByMe(request));
+    ResponseEntity<UserDTO> findByMe(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                     HttpServletRequest request) {
+        if (ifNoneMatch != null) {
+            String eTag = userService.findMyETag(request);
+            if (ETags.matches(ifNoneMatch, eTag))
+                return ETags.notModified(eTag);
+        }
+        VersionedDTO<UserDTO> user = userService.findVersionedByMe(request);
+        return ResponseEntity.ok().eTag(user.eTag()).body(user.body());
     }
 
 }
@@ -3,60 +3,89 @@ package com.pitang.desafiopitangapi.controllers;
 import com.pitang.desafiopitangapi.config.UserAuthenticationProvider;
 import com.pitang.desafiopitangapi.domain.dto.UserDTO;
 import com.pitang.desafiopitangapi.domain.mapper.UserMapper;
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
 import com.pitang.desafiopitangapi.exceptions.InvalidTokenException;
 import lombok.RequiredArgsConstructor;
 import com.pitang.desafiopitangapi.domain.dto.LoginRequestDTO;
 import com.pitang.desafiopitangapi.domain.dto.ResponseDTO;
 import com.pitang.desafiopitangapi.domain.model.User;
 import com.pitang.desafiopitangapi.repository.UserRepository;
+import com.pitang.desafiopitangapi.service.PasswordHasher;
+import com.pitang.desafiopitangapi.service.UserService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Controller responsible for handling user sign-in requests.
  * Provides an endpoint for user authentication and token generation.
  */
 
+@Slf4j
 @RestController
 @RequestMapping("/signin")
 @RequiredArgsConstructor
 public class SignInController {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final UserAuthenticationProvider userAuthenticationProvider;
     private final UserMapper userMapper;
+    private final UserService userService;
 
     /**
      * Authenticates the user based on the provided login credentials.
-     * If valid, generates a JWT token and updates the user's last login timestamp.
+     * If valid, generates a JWT token and records the user's last login, which is written in the background.
+     * The user is loaded and the password checked on the {@link PasswordHasher} pool, so the request thread
+     * is released at once and a login refused for saturation costs it no database work.
+     * If the stored hash was created with a strength below the current one, it is replaced in the
+     * background once the response is ready.
      *
      * @author Robson Rodrigues
      * @param body The login request containing the user's login and password.
-     * @return A {@link ResponseEntity} containing the user details and JWT token.
+     * @return A future of the {@link ResponseEntity} containing the user details and JWT token.
      * @throws InvalidTokenException if the login or password is incorrect.
+     * @throws BusinessException with status {@code SERVICE_UNAVAILABLE} if too many passwords are being checked.
      */
     @PostMapping()
-    public ResponseEntity signIn(@RequestBody LoginRequestDTO body) {
-
-        User user = userRepository.findByLogin(body.login())
-                .orElseThrow(() -> new InvalidTokenException("Invalid login or password", HttpStatus.UNAUTHORIZED));
+    public CompletableFuture<ResponseEntity<ResponseDTO>> signIn(@RequestBody LoginRequestDTO body) {
 
         // Verifica se a senha é válida
-        if (!passwordEncoder.matches(body.password(), user.getPassword())) {
-            throw new InvalidTokenException("Invalid login or password", HttpStatus.UNAUTHORIZED);
-        }
+        return passwordHasher.verify(body.password(),
+                        () -> userRepository.findWithCarsByLogin(body.login()), User::getPassword)
+                .thenApply(found -> {
+                    User user = found.orElseThrow(
+                            () -> new InvalidTokenException("Invalid login or password", HttpStatus.UNAUTHORIZED));
 
-        UserDTO userDTO = userMapper.toUserDTO(user);
-        userDTO = User.toDTO(user);
-        String token = userAuthenticationProvider.createToken(userDTO);
+                    userService.updateLastLogin(user);
+                    UserDTO userDTO = User.toDTO(user);
+                    userDTO.setLastLogin(LocalDate.now());
+                    String token = userAuthenticationProvider.createToken(userDTO);
+                    if (passwordHasher.needsRehash(user.getPassword()))
+                        rehash(user, body.password());
 
-        return ResponseEntity.ok(new ResponseDTO(userDTO, token));
+                    return ResponseEntity.ok(new ResponseDTO(userDTO, token));
+                });
+    }
+
+    private void rehash(User user, String password) {
+        try {
+            passwordHasher.encode(password)
+                    .thenAccept(hash -> userService.rehashPassword(user, hash))
+                    .exceptionally(e -> {
+                        log.warn("Could not rehash the password of user {}", user.getId(), e);
+                        return null;
+                    });
+        } catch (BusinessException e) {
+            // The pool is saturated: the hash will be replaced on a later sign-in.
+        }
     }
 
 }
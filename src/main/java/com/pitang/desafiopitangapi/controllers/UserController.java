@@ -1,15 +1,27 @@
 package com.pitang.desafiopitangapi.controllers;
 
+import com.pitang.desafiopitangapi.domain.dto.CursorPageDTO;
 import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.dto.VersionedDTO;
+import com.pitang.desafiopitangapi.service.ExportFormat;
+import com.pitang.desafiopitangapi.service.ExportService;
+import com.pitang.desafiopitangapi.service.UserImportService;
 import com.pitang.desafiopitangapi.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller responsible for managing user-related operations.
@@ -21,20 +33,41 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final ExportService exportService;
 
     /**
-     * Registers a new user in the system.
+     * Registers a new user in the system. The request thread is released while the password is hashed.
      *
      * @param body The user data to be registered.
-     * @return A {@link ResponseEntity} with the status of the creation and the registered user.
-     * @throws BusinessException if there are validation errors or the user already exists.
+     * @return A future of the {@link ResponseEntity} with the status of the creation and the registered user.
+     * @throws BusinessException if there are validation errors or the user already exists,
+     * or with status {@code SERVICE_UNAVAILABLE} if too many passwords are being hashed.
      */
     @PostMapping
-    public ResponseEntity<UserDTO> register(@RequestBody UserDTO body) throws BusinessException {
-        return ResponseEntity.status(HttpStatus.CREATED).body(userService.register(body));
+    public CompletableFuture<ResponseEntity<UserDTO>> register(@RequestBody UserDTO body) throws BusinessException {
+        return userService.register(body).thenApply(user -> ResponseEntity.status(HttpStatus.CREATED).body(user));
     }
 
 
+    /**
+     * Imports users and their cars from a newline-delimited JSON body, one user per line.
+     * The body is read as it arrives and the outcome of each line is streamed back as NDJSON
+     * once the chunk containing it is committed.
+     *
+     * @author Robson Rodrigues
+     * @param request The HTTP request whose body holds the users to be imported.
+     * @return A {@link ResponseEntity} whose body writes one result per imported line.
+     * @throws IOException if the request body cannot be opened.
+     */
+    @PostMapping(value = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importUsers(HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(output -> userImportService.importUsers(body, output));
+    }
+
     /**
      * Retrieves a list of all users.
      *
@@ -48,15 +81,70 @@ public class UserController {
     }
 
     /**
-     * Retrieves a specific user by their ID.
+     * Retrieves a page of users using keyset pagination.
+     *
+     * @author Robson Rodrigues
+     * @param limit The maximum number of users in the page.
+     * @param after The cursor returned with the previous page; omitted for the first page.
+     * @return A {@link ResponseEntity} containing the users of the page and the cursor of the next page.
+     * @throws BusinessException if the limit is out of range or the cursor is invalid.
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPageDTO<UserDTO>> findPage(@RequestParam int limit,
+                                                           @RequestParam(required = false) String after) throws BusinessException {
+        return ResponseEntity.ok(userService.findPage(limit, after));
+    }
+
+    /**
+     * Streams all users as newline-delimited JSON, one user per line, when the client
+     * asks for {@code application/x-ndjson}. Heap use does not depend on the number of users.
+     *
+     * @author Robson Rodrigues
+     * @return A {@link ResponseEntity} whose body writes the users directly to the response.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(userService::streamAll);
+    }
+
+    /**
+     * Exports all users, without their cars, as a CSV or NDJSON attachment streamed from the database,
+     * compressed with gzip when the client accepts it. Heap use does not depend on the number of users.
+     *
+     * @author Robson Rodrigues
+     * @param format The format of the export, {@code csv} (default) or {@code ndjson}.
+     * @param acceptEncoding The encodings accepted by the client.
+     * @return A {@link ResponseEntity} whose body writes the export directly to the response.
+     * @throws BusinessException if the format is not supported.
+     */
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                        String acceptEncoding) throws BusinessException {
+        return ExportResponse.of("users", ExportFormat.of(format), acceptEncoding, exportService::exportUsers);
+    }
+
+    /**
+     * Retrieves a specific user by their ID, with the ETag of the user and their cars.
+     * When {@code If-None-Match} is sent, the ETag is read first with one query on the user row and
+     * a {@code 304 Not Modified} is returned on a match, without loading the user.
      *
      * @author Robson Rodrigues
      * @param id The ID of the user to retrieve.
-     * @return A {@link ResponseEntity} containing the user data.
+     * @param ifNoneMatch The ETags the client already has, may be null.
+     * @return A {@link ResponseEntity} containing the user data, or an empty {@code NOT_MODIFIED} response.
      */
     @GetMapping("{id}")
-    public ResponseEntity<UserDTO> getUserById(@PathVariable String id) {
-        return ResponseEntity.ok(userService.findById(id));
+    public ResponseEntity<UserDTO> getUserById(@PathVariable String id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String eTag = userService.findETag(id);
+            if (ETags.matches(ifNoneMatch, eTag))
+                return ETags.notModified(eTag);
+        }
+        VersionedDTO<UserDTO> user = userService.findVersionedById(id);
+        return ResponseEntity.ok().eTag(user.eTag()).body(user.body());
     }
 
     /**
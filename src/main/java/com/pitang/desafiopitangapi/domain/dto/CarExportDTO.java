@@ -0,0 +1,21 @@
+package com.pitang.desafiopitangapi.domain.dto;
+
+/**
+ * DTO (Data Transfer Object) for one row of the car export, read straight from the database
+ * by a constructor expression so no entity is loaded into the persistence context.
+ */
+public record CarExportDTO(String id, Integer year, String licensePlate, String model, String color,
+                           Boolean usage, Integer usageCount) {
+
+    public static final String[] CSV_HEADER = {"id", "year", "licensePlate", "model", "color", "usage", "usageCount"};
+
+    /**
+     * Gets the values of the row in the order of {@link #CSV_HEADER}.
+     *
+     * @author Robson Rodrigues
+     * @return the values of the row
+     */
+    public Object[] csvValues() {
+        return new Object[]{id, year, licensePlate, model, color, usage, usageCount};
+    }
+}
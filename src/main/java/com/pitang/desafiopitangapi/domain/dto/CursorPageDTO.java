@@ -0,0 +1,11 @@
+package com.pitang.desafiopitangapi.domain.dto;
+
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) for a page of a keyset-paginated listing.
+ * Contains the items of the page and the opaque cursor of the next page,
+ * which is null when there are no more items.
+ */
+public record CursorPageDTO<T>(List<T> items, String nextCursor) {
+}
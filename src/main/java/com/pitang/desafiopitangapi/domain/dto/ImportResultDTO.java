@@ -0,0 +1,17 @@
+package com.pitang.desafiopitangapi.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.pitang.desafiopitangapi.domain.validation.FieldError;
+
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) for the outcome of one line of a user import.
+ * Created lines carry the ID of the new user; rejected lines carry the fields that failed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImportResultDTO(long line, String status, String id, List<FieldError> errors) {
+
+    public static final String CREATED = "created";
+    public static final String REJECTED = "rejected";
+}
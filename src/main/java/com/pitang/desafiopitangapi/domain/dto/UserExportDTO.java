@@ -0,0 +1,37 @@
+package com.pitang.desafiopitangapi.domain.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * DTO (Data Transfer Object) for one row of the user export, read straight from the database
+ * by a constructor expression so no entity is loaded into the persistence context.
+ */
+public record UserExportDTO(String id, String firstName, String lastName, String email, LocalDate birthday,
+                            String login, String phone, LocalDate createdAt, LocalDate lastLogin) {
+
+    public static final String[] CSV_HEADER =
+            {"id", "firstName", "lastName", "email", "birthday", "login", "phone", "createdAt", "lastLogin"};
+
+    /**
+     * Constructor used by the export query, which reads the birthday with its mapped {@link Date} type.
+     */
+    public UserExportDTO(String id, String firstName, String lastName, String email, Date birthday,
+                         String login, String phone, LocalDate createdAt, LocalDate lastLogin) {
+        this(id, firstName, lastName, email,
+                birthday == null ? null : Instant.ofEpochMilli(birthday.getTime()).atZone(ZoneId.systemDefault()).toLocalDate(),
+                login, phone, createdAt, lastLogin);
+    }
+
+    /**
+     * Gets the values of the row in the order of {@link #CSV_HEADER}.
+     *
+     * @author Robson Rodrigues
+     * @return the values of the row
+     */
+    public Object[] csvValues() {
+        return new Object[]{id, firstName, lastName, email, birthday, login, phone, createdAt, lastLogin};
+    }
+}
@@ -0,0 +1,46 @@
+package com.pitang.desafiopitangapi.domain.dto;
+
+import com.pitang.desafiopitangapi.domain.model.User;
+
+import java.time.LocalDate;
+
+/**
+ * DTO (Data Transfer Object) with the versions of a user and of their fleet, read without loading the user,
+ * from which the ETags of the user and fleet endpoints are built. The last login is part of the user's ETag
+ * because writing it does not increment the version.
+ */
+public record UserVersionDTO(Long version, long fleetVersion, LocalDate lastLogin) {
+
+    /**
+     * Creates the versions of a loaded user.
+     *
+     * @author Robson Rodrigues
+     * @param user the user
+     * @return the versions of the user and of their fleet
+     */
+    public static UserVersionDTO of(User user) {
+        return new UserVersionDTO(user.getVersion(), user.getFleetVersion(), user.getLastLogin());
+    }
+
+    /**
+     * Gets the strong ETag of a user with their cars, which changes with the user, their last login or any of
+     * the cars.
+     *
+     * @author Robson Rodrigues
+     * @return the quoted ETag
+     */
+    public String eTag() {
+        String lastLoginDay = lastLogin == null ? "0" : String.valueOf(lastLogin.toEpochDay());
+        return "\"" + version + "-" + fleetVersion + "-" + lastLoginDay + "\"";
+    }
+
+    /**
+     * Gets the strong ETag of the user's fleet, which changes with any of the cars.
+     *
+     * @author Robson Rodrigues
+     * @return the quoted ETag
+     */
+    public String fleetETag() {
+        return "\"" + fleetVersion + "\"";
+    }
+}
@@ -0,0 +1,10 @@
+package com.pitang.desafiopitangapi.domain.dto;
+
+/**
+ * DTO (Data Transfer Object) pairing a response body with the ETag of the version it was read at.
+ *
+ * @param body the response body
+ * @param eTag the quoted ETag of the body
+ */
+public record VersionedDTO<T>(T body, String eTag) {
+}
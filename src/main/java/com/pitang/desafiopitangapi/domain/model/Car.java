@@ -1,24 +1,37 @@
 package com.pitang.desafiopitangapi.domain.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.pitang.desafiopitangapi.config.SecondLevelCacheConfig;
 import com.pitang.desafiopitangapi.domain.dto.CarDTO;
 import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.validation.FieldError;
+import com.pitang.desafiopitangapi.domain.validation.FieldValidator;
 import com.pitang.desafiopitangapi.exceptions.BusinessException;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.springframework.http.HttpStatus;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
-import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Represents a car entity.
  * This class is mapped to the "CARS" table in the database.
+ * The license plate is unique; the owner index also serves the fleet listing order
+ * (usage count, model) and the usage index serves the daily usage reset.
+ * Cars are kept in the second-level cache.
  */
 @Entity
-@Table(name = "CAR")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.CARS_REGION)
+@Table(name = "CAR", indexes = {
+        @Index(name = "UK_CAR_LICENSE_PLATE", columnList = "LICENSE_PLATE", unique = true),
+        @Index(name = "IDX_CAR_USER_USAGE_COUNT_MODEL", columnList = "USER_ID, USAGE_COUNT, MODEL"),
+        @Index(name = "IDX_CAR_USAGE", columnList = "USAGE")
+})
 @Getter @Setter @AllArgsConstructor @NoArgsConstructor
 public class Car {
 
@@ -67,20 +80,21 @@ public class Car {
 
     /**
      * The user associated with the car.
-     * This is a many-to-one relationship to the User entity.
+     * This is a many-to-one relationship to the User entity, loaded lazily so
+     * fleet queries do not issue an extra SELECT for the owner.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "USER_ID")
     @JsonBackReference
     private User user;
 
     /**
      * Validates the fields of the car.
-     * Throws a {@link BusinessException} if any of the fields are missing or invalid.
+     * Throws a {@link BusinessException} for the first field that is missing or invalid.
      * The validation checks include:
      * <ul>
      *     <li>Year cannot be in the future.</li>
-     *     <li>License plate must match the pattern "XXX-1234".</li>
+     *     <li>License plate must match the pattern "XXX-1234" or the Mercosul pattern "XXX1X23".</li>
      *     <li>Model and color cannot be empty.</li>
      *     <li>Year, license plate, model, and color cannot be null.</li>
      * </ul>
@@ -88,22 +102,9 @@ public class Car {
      * @throws BusinessException if any validation fails.
      */
     public void validate() {
-        if(year == null)
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-        if(licensePlate == null || licensePlate.isEmpty())
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-        if(model == null || model.isEmpty())
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-        if(color == null || color.isEmpty())
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-
-        if(year > LocalDateTime.now().getYear())
-            throw new BusinessException("Invalid fields", HttpStatus.BAD_REQUEST);
-
-        if (!licensePlate.matches("(?i)^[A-Z]{3}-\\d{4}$") &&
-                !licensePlate.matches("(?i)^[A-Z]{3}\\d[A-Z]\\d{2}$"))
-            throw new BusinessException("Invalid fields", HttpStatus.BAD_REQUEST);
-        //AppGenericException("License plate already exists", HttpStatus.BAD_REQUEST);
+        List<FieldError> errors = validateAll();
+        if (!errors.isEmpty())
+            throw errors.get(0).toException();
 
         if (usage == null)
             usage = false;
@@ -113,6 +114,31 @@ public class Car {
 
     }
 
+    /**
+     * Validates all the fields of the car in one pass, reporting missing fields before invalid ones.
+     * Unlike {@link #validate()}, it does not fill in the usage defaults.
+     *
+     * @author Robson Rodrigues
+     * @return the fields that failed validation, or an empty list if the car is valid.
+     */
+    public List<FieldError> validateAll() {
+        List<FieldError> errors = List.of();
+        if (year == null)
+            errors = FieldError.append(errors, "year", FieldError.MISSING);
+        if (FieldValidator.isEmpty(licensePlate))
+            errors = FieldError.append(errors, "licensePlate", FieldError.MISSING);
+        if (FieldValidator.isEmpty(model))
+            errors = FieldError.append(errors, "model", FieldError.MISSING);
+        if (FieldValidator.isEmpty(color))
+            errors = FieldError.append(errors, "color", FieldError.MISSING);
+
+        if (year != null && year > FieldValidator.currentYear())
+            errors = FieldError.append(errors, "year", FieldError.INVALID);
+        if (!FieldValidator.isEmpty(licensePlate) && !FieldValidator.isValidLicensePlate(licensePlate))
+            errors = FieldError.append(errors, "licensePlate", FieldError.INVALID);
+        return errors;
+    }
+
     public static CarDTO toDTO(Car car){
         CarDTO carDTO = new CarDTO();
         carDTO.setId(car.getId());
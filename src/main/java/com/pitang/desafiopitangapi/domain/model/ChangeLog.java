@@ -0,0 +1,82 @@
+package com.pitang.desafiopitangapi.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Represents a change to a user, to the cars of a user or to one car, appended so the other nodes of the cluster
+ * can evict the cached copies of the changed data.
+ * This class is mapped to the "CHANGE_LOG" table in the database; the index on the change time
+ * serves the removal of old changes.
+ */
+@Entity
+@Table(name = "CHANGE_LOG", indexes = {
+        @Index(name = "IDX_CHANGE_LOG_CHANGED_AT", columnList = "CHANGED_AT")
+})
+@Getter @Setter @AllArgsConstructor @NoArgsConstructor
+public class ChangeLog {
+
+    /**
+     * The kinds of data a change refers to.
+     */
+    public enum Type {
+        /**
+         * A user was updated or deleted; the entity ID is the user's ID.
+         */
+        USER,
+        /**
+         * The cars of a user changed; the entity ID is the owner's ID, or null if the cars of every user changed.
+         */
+        FLEET,
+        /**
+         * A car was updated, used, released or deleted; the entity ID is the car's ID. Logged together with the
+         * {@link #FLEET} change of its owner.
+         */
+        CAR
+    }
+
+    /**
+     * The position of the change in the log, assigned by the database in insertion order.
+     * Changes may commit out of order, so a lower sequence can become visible after a higher one.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "SEQ")
+    private Long sequence;
+
+    /**
+     * The kind of data that changed.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ENTITY_TYPE", nullable = false, length = 16)
+    private Type type;
+
+    /**
+     * The ID of the changed entity.
+     */
+    @Column(name = "ENTITY_ID")
+    private String entityId;
+
+    /**
+     * The version of the entity after the change, or null if it is unknown or the entity was deleted.
+     */
+    @Column(name = "ENTITY_VERSION")
+    private Long entityVersion;
+
+    /**
+     * The node that made the change, which already evicted its own cached copies.
+     */
+    @Column(name = "ORIGIN", nullable = false)
+    private String origin;
+
+    /**
+     * The instant the change was appended.
+     */
+    @Column(name = "CHANGED_AT", nullable = false)
+    private Instant changedAt;
+}
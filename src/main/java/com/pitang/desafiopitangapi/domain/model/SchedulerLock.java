@@ -0,0 +1,66 @@
+package com.pitang.desafiopitangapi.domain.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Represents the lease of a scheduled job shared by every node of the cluster,
+ * together with the outcome of its last execution.
+ * This class is mapped to the "SCHEDULER_LOCK" table in the database.
+ */
+@Entity
+@Table(name = "SCHEDULER_LOCK")
+@Getter @Setter @AllArgsConstructor @NoArgsConstructor
+public class SchedulerLock {
+
+    /**
+     * The name of the scheduled job protected by this lock.
+     */
+    @Id
+    @Column(name = "LOCK_NAME")
+    private String name;
+
+    /**
+     * The instant until which the lock is held; another node may acquire it after this instant.
+     */
+    @Column(name = "LOCKED_UNTIL", nullable = false)
+    private Instant lockedUntil;
+
+    /**
+     * The instant the lock was last acquired.
+     */
+    @Column(name = "LOCKED_AT", nullable = false)
+    private Instant lockedAt;
+
+    /**
+     * The node that last acquired the lock.
+     */
+    @Column(name = "LOCKED_BY", nullable = false)
+    private String lockedBy;
+
+    /**
+     * The instant the last execution started.
+     */
+    @Column(name = "LAST_RUN_AT")
+    private Instant lastRunAt;
+
+    /**
+     * The duration of the last execution, in milliseconds.
+     */
+    @Column(name = "LAST_DURATION_MS")
+    private Long lastDurationMs;
+
+    /**
+     * The number of rows affected by the last execution; null if it failed.
+     */
+    @Column(name = "LAST_ROWS_AFFECTED")
+    private Integer lastRowsAffected;
+}
@@ -1,11 +1,18 @@
 package com.pitang.desafiopitangapi.domain.model;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.pitang.desafiopitangapi.config.SecondLevelCacheConfig;
 import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.validation.FieldError;
+import com.pitang.desafiopitangapi.domain.validation.FieldValidator;
 import com.pitang.desafiopitangapi.exceptions.BusinessException;
 import jakarta.persistence.*;
 import lombok.*;
-import org.springframework.http.HttpStatus;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 import java.time.LocalDate;
 import java.util.Date;
@@ -14,9 +21,16 @@ import java.util.List;
 /**
  * Represents a user entity with its associated properties and methods.
  * This class is mapped to the "USERS" table in the database.
+ * Login and email are unique and indexed, as every sign-in and registration looks them up.
+ * Users and their car collections are kept in the second-level cache.
  */
 @Entity
-@Table(name = "USERS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USERS_REGION)
+@Table(name = "USERS", indexes = {
+        @Index(name = "UK_USERS_LOGIN", columnList = "LOGIN", unique = true),
+        @Index(name = "UK_USERS_EMAIL", columnList = "EMAIL", unique = true)
+})
 @Getter @Setter @AllArgsConstructor @NoArgsConstructor
 public class User {
 
@@ -88,22 +102,46 @@ public class User {
 
     /**
      * The date the user last logged in.
-     * This field may be null if the user hasn't logged in yet.
+     * This field may be null if the user hasn't logged in yet. It is only written by the bulk updates of the
+     * {@code LastLoginRecorder}, without incrementing the version, so a login never makes a concurrent edit of the
+     * user fail, and saving a user read before a login never moves it back. It is read again after every update
+     * of the user, so the entity and its cached copy hold the stored date rather than the one read before.
      */
-    @Column(name = "LAST_LOGIN")
+    @Generated(event = EventType.UPDATE)
+    @Column(name = "LAST_LOGIN", updatable = false)
     private LocalDate lastLogin;
 
+    /**
+     * The version of the user's row, incremented by every change to it except a new last login, and used with
+     * the last login as its ETag.
+     */
+    @Version
+    @JsonIgnore
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
+    /**
+     * The version of the user's fleet, incremented in the same transaction as every change to one of the
+     * user's cars (registration, update, use, deletion and usage reset), so the fleet has an ETag
+     * without reading the cars. Cars registered together with a new user keep version 0. It is only written by
+     * bulk updates, so saving a user read before a car changed never moves it back.
+     */
+    @JsonIgnore
+    @Column(name = "FLEET_VERSION", nullable = false, updatable = false)
+    private long fleetVersion;
+
     /**
      * The list of cars associated with the user.
      * This is a one-to-many relationship with the Car entity.
      */
     @OneToMany(mappedBy = "user")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USER_CARS_REGION)
     @JsonManagedReference
     private List<Car> cars;
 
     /**
      * Validates the fields of the user.
-     * Throws a {@link BusinessException} if any of the fields are missing or invalid.
+     * Throws a {@link BusinessException} for the first field that is missing or invalid.
      * The validation checks include:
      * <ul>
      *     <li>First name, last name, email, birthday, login, password, and phone cannot be null or empty.</li>
@@ -114,29 +152,39 @@ public class User {
      * @throws BusinessException if any validation fails.
      */
     public void validate() {
-        if(firstName == null || firstName.isEmpty())
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-        if(lastName == null || lastName.isEmpty())
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-        if(email == null || email.isEmpty())
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-        if(birthday == null)
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-        if(login == null || login.isEmpty())
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-        if(password == null || password.isEmpty())
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-        if(phone == null || phone.isEmpty())
-            throw new BusinessException("Missing fields", HttpStatus.BAD_REQUEST);
-
-        if (!email.matches("^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$"))
-            throw new BusinessException("Invalid fields", HttpStatus.BAD_REQUEST);
-
-        String regex = "^(\\+\\d{1,2}\\s?)?\\(?\\d{2,3}\\)?\\s?-?\\d{4,5}-?\\d{4}$|^\\d{8,9}$";
-
-        if (!phone.matches(regex)) {
-            throw new BusinessException("Invalid fields", HttpStatus.BAD_REQUEST);
-        }
+        List<FieldError> errors = validateAll();
+        if (!errors.isEmpty())
+            throw errors.get(0).toException();
+    }
+
+    /**
+     * Validates all the fields of the user in one pass, reporting missing fields before invalid ones.
+     *
+     * @author Robson Rodrigues
+     * @return the fields that failed validation, or an empty list if the user is valid.
+     */
+    public List<FieldError> validateAll() {
+        List<FieldError> errors = List.of();
+        if (FieldValidator.isEmpty(firstName))
+            errors = FieldError.append(errors, "firstName", FieldError.MISSING);
+        if (FieldValidator.isEmpty(lastName))
+            errors = FieldError.append(errors, "lastName", FieldError.MISSING);
+        if (FieldValidator.isEmpty(email))
+            errors = FieldError.append(errors, "email", FieldError.MISSING);
+        if (birthday == null)
+            errors = FieldError.append(errors, "birthday", FieldError.MISSING);
+        if (FieldValidator.isEmpty(login))
+            errors = FieldError.append(errors, "login", FieldError.MISSING);
+        if (FieldValidator.isEmpty(password))
+            errors = FieldError.append(errors, "password", FieldError.MISSING);
+        if (FieldValidator.isEmpty(phone))
+            errors = FieldError.append(errors, "phone", FieldError.MISSING);
+
+        if (!FieldValidator.isEmpty(email) && !FieldValidator.isValidEmail(email))
+            errors = FieldError.append(errors, "email", FieldError.INVALID);
+        if (!FieldValidator.isEmpty(phone) && !FieldValidator.isValidPhone(phone))
+            errors = FieldError.append(errors, "phone", FieldError.INVALID);
+        return errors;
     }
 
     /**
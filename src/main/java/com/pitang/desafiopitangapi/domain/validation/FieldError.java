@@ -0,0 +1,46 @@
+package com.pitang.desafiopitangapi.domain.validation;
+
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A field that failed validation, as reported by {@code validateAll} on the entities.
+ *
+ * @param field the name of the field
+ * @param message the error message, {@link #MISSING} or {@link #INVALID}
+ */
+public record FieldError(String field, String message) {
+
+    public static final String MISSING = "Missing fields";
+    public static final String INVALID = "Invalid fields";
+
+    /**
+     * Appends an error to the list, replacing the shared empty list by a mutable one on the first error,
+     * so validating a valid object allocates nothing.
+     *
+     * @author Robson Rodrigues
+     * @param errors the errors collected so far, initially {@link List#of()}
+     * @param field the name of the field
+     * @param message the error message
+     * @return the list holding the collected errors
+     */
+    public static List<FieldError> append(List<FieldError> errors, String field, String message) {
+        List<FieldError> result = errors.isEmpty() ? new ArrayList<>(4) : errors;
+        result.add(new FieldError(field, message));
+        return result;
+    }
+
+    /**
+     * Converts the error into the exception thrown by the fail-fast validation. The stack trace is not
+     * captured, since it always points to the same validation code and is never logged.
+     *
+     * @author Robson Rodrigues
+     * @return a {@link BusinessException} with status 400
+     */
+    public BusinessException toException() {
+        return new BusinessException(message, HttpStatus.BAD_REQUEST, false);
+    }
+}
@@ -0,0 +1,125 @@
+package com.pitang.desafiopitangapi.domain.validation;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Format checks shared by the entity validations.
+ * <p>
+ * The patterns are compiled once and each thread reuses its own {@link Matcher}, and license plates are
+ * checked by hand, so none of the checks allocates for valid input.
+ * </p>
+ */
+public final class FieldValidator {
+
+    private static final Pattern EMAIL =
+            Pattern.compile("^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$");
+
+    private static final Pattern PHONE =
+            Pattern.compile("^(\\+\\d{1,2}\\s?)?\\(?\\d{2,3}\\)?\\s?-?\\d{4,5}-?\\d{4}$|^\\d{8,9}$");
+
+    private static final ThreadLocal<Matcher> EMAIL_MATCHER = ThreadLocal.withInitial(() -> EMAIL.matcher(""));
+    private static final ThreadLocal<Matcher> PHONE_MATCHER = ThreadLocal.withInitial(() -> PHONE.matcher(""));
+
+    private static volatile CurrentYear currentYear = CurrentYear.now();
+
+    private FieldValidator() {
+    }
+
+    /**
+     * Checks whether the value is null or empty.
+     *
+     * @author Robson Rodrigues
+     * @param value the value to be checked
+     * @return {@code true} if the value is null or empty
+     */
+    public static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * Checks whether the value is a valid email address.
+     *
+     * @author Robson Rodrigues
+     * @param email the email to be checked, not null
+     * @return {@code true} if the email is valid
+     */
+    public static boolean isValidEmail(String email) {
+        return matches(EMAIL_MATCHER.get(), email);
+    }
+
+    /**
+     * Checks whether the value is a valid phone number, with optional country and area codes.
+     *
+     * @author Robson Rodrigues
+     * @param phone the phone number to be checked, not null
+     * @return {@code true} if the phone number is valid
+     */
+    public static boolean isValidPhone(String phone) {
+        return matches(PHONE_MATCHER.get(), phone);
+    }
+
+    /**
+     * Checks whether the value is a license plate in the legacy ({@code AAA-9999}) or the
+     * Mercosul ({@code AAA9A99}) format, ignoring case.
+     *
+     * @author Robson Rodrigues
+     * @param plate the license plate to be checked, not null
+     * @return {@code true} if the license plate is valid
+     */
+    public static boolean isValidLicensePlate(String plate) {
+        if (plate.length() == 8) {
+            return isLetter(plate.charAt(0)) && isLetter(plate.charAt(1)) && isLetter(plate.charAt(2))
+                    && plate.charAt(3) == '-'
+                    && isDigit(plate.charAt(4)) && isDigit(plate.charAt(5))
+                    && isDigit(plate.charAt(6)) && isDigit(plate.charAt(7));
+        }
+        if (plate.length() == 7) {
+            return isLetter(plate.charAt(0)) && isLetter(plate.charAt(1)) && isLetter(plate.charAt(2))
+                    && isDigit(plate.charAt(3)) && isLetter(plate.charAt(4))
+                    && isDigit(plate.charAt(5)) && isDigit(plate.charAt(6));
+        }
+        return false;
+    }
+
+    /**
+     * Gets the current year in the default time zone, without allocating a date on every call.
+     *
+     * @author Robson Rodrigues
+     * @return the current year
+     */
+    public static int currentYear() {
+        CurrentYear year = currentYear;
+        if (System.currentTimeMillis() >= year.nextYearAt()) {
+            year = CurrentYear.now();
+            currentYear = year;
+        }
+        return year.value();
+    }
+
+    private static boolean matches(Matcher matcher, String value) {
+        boolean matches = matcher.reset(value).matches();
+        matcher.reset("");
+        return matches;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private record CurrentYear(int value, long nextYearAt) {
+
+        static CurrentYear now() {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate today = LocalDate.now(zone);
+            long nextYearAt = LocalDate.of(today.getYear() + 1, 1, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return new CurrentYear(today.getYear(), nextYearAt);
+        }
+    }
+}
@@ -24,6 +24,20 @@ public class BusinessException extends RuntimeException {
         this.status = status;
     }
 
+    /**
+     * Constructs a new BusinessException that optionally skips capturing the stack trace,
+     * for errors raised on expected paths such as input validation.
+     *
+     * @author Robson Rodrigues
+     * @param message the detail message explaining the exception
+     * @param status the HTTP status associated with this exception
+     * @param writableStackTrace whether the stack trace should be captured
+     */
+    public BusinessException(String message, HttpStatus status, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.status = status;
+    }
+
     /**
      * Gets the HTTP status associated with this exception.
      *
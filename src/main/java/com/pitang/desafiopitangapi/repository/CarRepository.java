@@ -1,11 +1,21 @@
 package com.pitang.desafiopitangapi.repository;
 
+import com.pitang.desafiopitangapi.domain.dto.CarExportDTO;
 import com.pitang.desafiopitangapi.domain.model.Car;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for performing CRUD operations on the {@link Car} entity.
@@ -23,6 +33,40 @@ public interface CarRepository extends JpaRepository<Car, String> {
      */
     boolean existsByLicensePlate(String licensePlate);
 
+    /**
+     * Retrieves which of the given license plates are already used by a car, in a single query.
+     *
+     * @author Robson Rodrigues
+     * @param licensePlates The license plates to be checked.
+     * @return The license plates that already exist.
+     */
+    @Query("select c.licensePlate from Car c where c.licensePlate in :licensePlates")
+    List<String> findExistingLicensePlates(@Param("licensePlates") Collection<String> licensePlates);
+
+    /**
+     * Streams the export rows of the cars of a user, in the order of the fleet listing, through a
+     * forward-only cursor and without loading entities. Must be consumed inside a transaction and closed afterwards.
+     *
+     * @author Robson Rodrigues
+     * @param userId The ID of the user whose cars are streamed.
+     * @return A stream of the export rows of the user's cars.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.pitang.desafiopitangapi.domain.dto.CarExportDTO(c.id, c.year, c.licensePlate, c.model, "
+            + "c.color, c.usage, c.usageCount) from Car c where c.user.id = :userId order by c.usageCount desc, c.model asc")
+    Stream<CarExportDTO> streamExportRowsByUserId(@Param("userId") String userId);
+
+    /**
+     * Streams the license plate of every car through a forward-only cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @author Robson Rodrigues
+     * @return A stream of all license plates.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.licensePlate from Car c")
+    Stream<String> streamLicensePlates();
+
     /**
      * Retrieves a list of cars associated with the user specified by their ID.
      *
@@ -50,6 +94,72 @@ public interface CarRepository extends JpaRepository<Car, String> {
      */
     List<Car> findByUsageTrue();
 
+    /**
+     * Marks every car that is currently in use as not in use, in a single statement.
+     *
+     * @author Robson Rodrigues
+     * @return The number of cars that were reset.
+     */
+    @Modifying
+    @Query("update Car c set c.usage = false where c.usage = true")
+    int resetUsage();
+
+    /**
+     * Retrieves the IDs of cars that are currently in use, limited by the given page.
+     *
+     * @author Robson Rodrigues
+     * @param pageable The page limiting how many IDs are returned.
+     * @return A list with the IDs of cars in use.
+     */
+    @Query("select c.id from Car c where c.usage = true")
+    List<String> findIdsByUsageTrue(Pageable pageable);
+
+    /**
+     * Marks the given cars as not in use, if they still are.
+     *
+     * @author Robson Rodrigues
+     * @param ids The IDs of the cars to be reset.
+     * @return The number of cars that were reset.
+     */
+    @Modifying
+    @Query("update Car c set c.usage = false where c.id in :ids and c.usage = true")
+    int resetUsageByIds(@Param("ids") Collection<String> ids);
+
+    /**
+     * Marks the given car of the user as in use and increments its usage count.
+     *
+     * @author Robson Rodrigues
+     * @param carId The ID of the car to be used.
+     * @param userId The ID of the user who owns the car.
+     * @return {@code 1} if the car was found, {@code 0} otherwise.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Car c set c.usage = true, c.usageCount = c.usageCount + 1 where c.id = :carId and c.user.id = :userId")
+    int markInUse(@Param("carId") String carId, @Param("userId") String userId);
+
+    /**
+     * Retrieves the IDs of the cars of the user, except the given one, that are in use.
+     *
+     * @author Robson Rodrigues
+     * @param userId The ID of the user who owns the cars.
+     * @param carId The ID of the car to be left out.
+     * @return The IDs of the other cars in use.
+     */
+    @Query("select c.id from Car c where c.user.id = :userId and c.usage = true and c.id <> :carId")
+    List<String> findIdsInUseExcept(@Param("userId") String userId, @Param("carId") String carId);
+
+    /**
+     * Marks every car of the user, except the given one, as not in use.
+     *
+     * @author Robson Rodrigues
+     * @param userId The ID of the user who owns the cars.
+     * @param carId The ID of the car that keeps its usage.
+     * @return The number of cars that were released.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Car c set c.usage = false where c.user.id = :userId and c.usage = true and c.id <> :carId")
+    int releaseUsageExcept(@Param("userId") String userId, @Param("carId") String carId);
+
     /**
      * Retrieves a list of cars associated with the specified user ID,
      * ordered by usage count in descending order.
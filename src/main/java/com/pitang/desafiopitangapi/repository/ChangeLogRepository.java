@@ -0,0 +1,65 @@
+package com.pitang.desafiopitangapi.repository;
+
+import com.pitang.desafiopitangapi.domain.model.ChangeLog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for appending and reading {@link ChangeLog} entries.
+ * Extends {@link JpaRepository} to provide standard JPA functionality.
+ */
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLog, Long> {
+
+    /**
+     * Reads the changes appended after the given position, in sequence order, through the primary key.
+     *
+     * @author Robson Rodrigues
+     * @param sequence The highest sequence already read.
+     * @param pageable The maximum number of changes to read.
+     * @return The next changes of the log.
+     */
+    @Query("select c from ChangeLog c where c.sequence > :sequence order by c.sequence")
+    List<ChangeLog> findAfter(@Param("sequence") long sequence, Pageable pageable);
+
+    /**
+     * Reads the changes with the given sequences, used for the positions skipped by transactions
+     * that had not committed yet when the log was read.
+     *
+     * @author Robson Rodrigues
+     * @param sequences The sequences to read.
+     * @return The changes found, in sequence order.
+     */
+    @Query("select c from ChangeLog c where c.sequence in :sequences order by c.sequence")
+    List<ChangeLog> findBySequences(@Param("sequences") Collection<Long> sequences);
+
+    /**
+     * Reads the highest sequence of the log.
+     *
+     * @author Robson Rodrigues
+     * @return The highest sequence, or null if the log is empty.
+     */
+    @Query("select max(c.sequence) from ChangeLog c")
+    Long findMaxSequence();
+
+    /**
+     * Removes the changes appended before the given instant.
+     *
+     * @author Robson Rodrigues
+     * @param before The instant before which changes are removed.
+     * @return The number of changes removed.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from ChangeLog c where c.changedAt < :before")
+    int deleteOlderThan(@Param("before") Instant before);
+}
@@ -0,0 +1,76 @@
+package com.pitang.desafiopitangapi.repository;
+
+import com.pitang.desafiopitangapi.domain.model.SchedulerLock;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+/**
+ * Repository interface for acquiring and releasing {@link SchedulerLock} leases.
+ * Extends {@link JpaRepository} to provide standard JPA functionality.
+ */
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    /**
+     * Acquires an existing lock if its lease has expired.
+     *
+     * @author Robson Rodrigues
+     * @param name The name of the lock.
+     * @param now The current instant.
+     * @param lockedUntil The instant until which the lock will be held.
+     * @param owner The node acquiring the lock.
+     * @return {@code 1} if the lock was acquired, {@code 0} otherwise.
+     */
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :lockedUntil, l.lockedAt = :now, l.lockedBy = :owner "
+            + "where l.name = :name and l.lockedUntil <= :now")
+    int acquire(@Param("name") String name, @Param("now") Instant now,
+                @Param("lockedUntil") Instant lockedUntil, @Param("owner") String owner);
+
+    /**
+     * Creates a lock that is acquired by the given node. Fails with a constraint violation
+     * if another node created it first. The statement declares the only table it writes, so Hibernate does not
+     * clear the whole second-level cache as it does for native statements on unknown tables.
+     *
+     * @author Robson Rodrigues
+     * @param name The name of the lock.
+     * @param now The current instant.
+     * @param lockedUntil The instant until which the lock will be held.
+     * @param owner The node acquiring the lock.
+     * @return {@code 1} if the lock was created.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "SCHEDULER_LOCK"))
+    @Query(value = "INSERT INTO SCHEDULER_LOCK (LOCK_NAME, LOCKED_UNTIL, LOCKED_AT, LOCKED_BY) "
+            + "VALUES (:name, :lockedUntil, :now, :owner)", nativeQuery = true)
+    int insert(@Param("name") String name, @Param("now") Instant now,
+               @Param("lockedUntil") Instant lockedUntil, @Param("owner") String owner);
+
+    /**
+     * Shortens the lease of a lock held by the given node and records the outcome of the execution.
+     *
+     * @author Robson Rodrigues
+     * @param name The name of the lock.
+     * @param owner The node holding the lock.
+     * @param lockedUntil The instant until which the lock stays held after the execution.
+     * @param lastRunAt The instant the execution started.
+     * @param lastDurationMs The duration of the execution, in milliseconds.
+     * @param lastRowsAffected The number of rows affected, or null if the execution failed.
+     * @return {@code 1} if the lock was still held by the node, {@code 0} otherwise.
+     */
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :lockedUntil, l.lastRunAt = :lastRunAt, "
+            + "l.lastDurationMs = :lastDurationMs, l.lastRowsAffected = :lastRowsAffected "
+            + "where l.name = :name and l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("lockedUntil") Instant lockedUntil,
+                @Param("lastRunAt") Instant lastRunAt, @Param("lastDurationMs") Long lastDurationMs,
+                @Param("lastRowsAffected") Integer lastRowsAffected);
+}
@@ -1,9 +1,23 @@
 package com.pitang.desafiopitangapi.repository;
 
+import com.pitang.desafiopitangapi.domain.dto.UserExportDTO;
+import com.pitang.desafiopitangapi.domain.dto.UserVersionDTO;
 import com.pitang.desafiopitangapi.domain.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for performing CRUD operations on the {@link User} entity.
@@ -12,14 +26,97 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, String> {
 
     /**
-     * Retrieves a user by their login.
+     * Retrieves a user by their login. The result is kept in the query cache until the USERS table changes,
+     * and the user itself in the second-level cache.
      *
      * @author Robson Rodrigues
      * @param login The login of the user to be retrieved.
      * @return An {@link Optional} containing the user if found, or an empty {@link Optional} if not found.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByLogin(String login);
 
+    /**
+     * Replaces the password hash of a user, only if it still holds the expected hash,
+     * so a password changed in the meantime is never overwritten.
+     *
+     * @author Robson Rodrigues
+     * @param id The ID of the user.
+     * @param expectedPassword The hash the user is expected to hold.
+     * @param newPassword The new hash.
+     * @return The number of users updated, 0 or 1.
+     */
+    @Modifying
+    @Query("update User u set u.password = :newPassword where u.id = :id and u.password = :expectedPassword")
+    int updatePassword(@Param("id") String id, @Param("expectedPassword") String expectedPassword,
+                       @Param("newPassword") String newPassword);
+
+    /**
+     * Sets the last login date of the given users in a single statement, never moving it backwards.
+     * The version is left as is, so an edit of the user made meanwhile does not fail its optimistic lock;
+     * the users' ETags change with the date itself.
+     * The statement declares a space of its own instead of the USERS table, so Hibernate keeps the users region
+     * and the lookups by login cached; the caller evicts the updated users.
+     *
+     * @author Robson Rodrigues
+     * @param ids The IDs of the users who signed in.
+     * @param lastLogin The date of their last login.
+     * @return The number of users updated.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "USERS.LAST_LOGIN"))
+    @Query(value = "UPDATE USERS SET LAST_LOGIN = :lastLogin "
+            + "WHERE USER_ID IN (:ids) AND (LAST_LOGIN IS NULL OR LAST_LOGIN < :lastLogin)", nativeQuery = true)
+    int updateLastLogin(@Param("ids") Collection<String> ids, @Param("lastLogin") LocalDate lastLogin);
+
+    /**
+     * Reads the versions and the last login of a user and the version of their fleet without loading the user.
+     *
+     * @author Robson Rodrigues
+     * @param id The ID of the user.
+     * @return An {@link Optional} containing the versions if the user exists, or an empty {@link Optional} if not found.
+     */
+    @Query("select new com.pitang.desafiopitangapi.domain.dto.UserVersionDTO(u.version, u.fleetVersion, u.lastLogin) "
+            + "from User u where u.id = :id")
+    Optional<UserVersionDTO> findVersionById(@Param("id") String id);
+
+    /**
+     * Increments the fleet version of a user after one of their cars changed, in the transaction of the change.
+     * The statement declares a space of its own instead of the USERS table, so Hibernate keeps the users region
+     * and the lookups by login cached; the caller evicts the user.
+     *
+     * @author Robson Rodrigues
+     * @param id The ID of the user.
+     * @return The number of users updated, 0 or 1.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "USERS.FLEET_VERSION"))
+    @Query(value = "UPDATE USERS SET FLEET_VERSION = FLEET_VERSION + 1 WHERE USER_ID = :id", nativeQuery = true)
+    int incrementFleetVersion(@Param("id") String id);
+
+    /**
+     * Increments the fleet version of every user with a car in use, before the usage of all cars is reset.
+     *
+     * @author Robson Rodrigues
+     * @return The number of users updated.
+     */
+    @Modifying
+    @Query("update User u set u.fleetVersion = u.fleetVersion + 1 "
+            + "where u.id in (select c.user.id from Car c where c.usage = true)")
+    int incrementFleetVersionOfUsersWithCarsInUse();
+
+    /**
+     * Increments the fleet version of the owners of the given cars, before their usage is reset.
+     *
+     * @author Robson Rodrigues
+     * @param carIds The IDs of the cars.
+     * @return The number of users updated.
+     */
+    @Modifying
+    @Query("update User u set u.fleetVersion = u.fleetVersion + 1 "
+            + "where u.id in (select c.user.id from Car c where c.id in :carIds and c.usage = true)")
+    int incrementFleetVersionOfOwners(@Param("carIds") Collection<String> carIds);
+
     /**
      * Checks if a user with the given login exists in the database.
      *
@@ -37,4 +134,146 @@ public interface UserRepository extends JpaRepository<User, String> {
      * @return {@code true} if a user with the given email exists, {@code false} otherwise.
      */
     boolean existsByEmail(String email);
+
+    /**
+     * Locks the row of the given user until the end of the current transaction,
+     * serializing concurrent changes to the user's fleet.
+     *
+     * @author Robson Rodrigues
+     * @param id The ID of the user to lock.
+     * @return An {@link Optional} containing the ID if the user exists, or an empty {@link Optional} if not found.
+     */
+    @Query(value = "SELECT USER_ID FROM USERS WHERE USER_ID = :id FOR UPDATE", nativeQuery = true)
+    Optional<String> lockById(@Param("id") String id);
+
+    /**
+     * Retrieves the IDs of the first page of users ordered by ID.
+     *
+     * @author Robson Rodrigues
+     * @param pageable The page limiting how many IDs are returned.
+     * @return A list with the first user IDs in order.
+     */
+    @Query("select u.id from User u order by u.id")
+    List<String> findFirstPageIds(Pageable pageable);
+
+    /**
+     * Retrieves the IDs of the users that come after the given one, ordered by ID (keyset pagination).
+     *
+     * @author Robson Rodrigues
+     * @param after The ID of the last user of the previous page.
+     * @param pageable The page limiting how many IDs are returned.
+     * @return A list with the next user IDs in order.
+     */
+    @Query("select u.id from User u where u.id > :after order by u.id")
+    List<String> findPageIdsAfter(@Param("after") String after, Pageable pageable);
+
+    /**
+     * Retrieves the users with the given IDs together with their cars, in a single query.
+     *
+     * @author Robson Rodrigues
+     * @param ids The IDs of the users to be retrieved.
+     * @return A list of users with their cars loaded, ordered by ID.
+     */
+    @EntityGraph(attributePaths = "cars")
+    @Query("select u from User u where u.id in :ids order by u.id")
+    List<User> findWithCarsByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Retrieves all users together with their cars, in a single query.
+     *
+     * @author Robson Rodrigues
+     * @return A list of all users with their cars loaded.
+     */
+    @EntityGraph(attributePaths = "cars")
+    @Query("select u from User u")
+    List<User> findAllWithCars();
+
+    /**
+     * Retrieves a user by ID together with their cars, in a single query.
+     *
+     * @author Robson Rodrigues
+     * @param id The ID of the user to be retrieved.
+     * @return An {@link Optional} containing the user with their cars loaded, or an empty {@link Optional} if not found.
+     */
+    @EntityGraph(attributePaths = "cars")
+    Optional<User> findWithCarsById(String id);
+
+    /**
+     * Retrieves a user by login together with their cars, in a single query, so the user can be returned
+     * after the persistence context that loaded it is closed.
+     *
+     * @author Robson Rodrigues
+     * @param login The login of the user to be retrieved.
+     * @return An {@link Optional} containing the user with their cars loaded, or an empty {@link Optional} if not found.
+     */
+    @EntityGraph(attributePaths = "cars")
+    Optional<User> findWithCarsByLogin(String login);
+
+    /**
+     * Streams every user ordered by ID through a forward-only, read-only cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @author Robson Rodrigues
+     * @return A stream of all users.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAll();
+
+    /**
+     * Retrieves which of the given logins are already used, in a single query.
+     *
+     * @author Robson Rodrigues
+     * @param logins The logins to be checked.
+     * @return The logins that already exist.
+     */
+    @Query("select u.login from User u where u.login in :logins")
+    List<String> findExistingLogins(@Param("logins") Collection<String> logins);
+
+    /**
+     * Retrieves which of the given emails are already used, in a single query.
+     *
+     * @author Robson Rodrigues
+     * @param emails The emails to be checked.
+     * @return The emails that already exist.
+     */
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Streams the export row of every user ordered by ID through a forward-only cursor, without loading entities.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @author Robson Rodrigues
+     * @return A stream of the export rows of all users.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.pitang.desafiopitangapi.domain.dto.UserExportDTO(u.id, u.firstName, u.lastName, u.email, "
+            + "u.birthday, u.login, u.phone, u.createdAt, u.lastLogin) from User u order by u.id")
+    Stream<UserExportDTO> streamExportRows();
+
+    /**
+     * Streams the login of every user through a forward-only cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @author Robson Rodrigues
+     * @return A stream of all logins.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.login from User u")
+    Stream<String> streamLogins();
+
+    /**
+     * Streams the email of every user through a forward-only cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @author Robson Rodrigues
+     * @return A stream of all emails.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.email from User u")
+    Stream<String> streamEmails();
 }
@@ -0,0 +1,132 @@
+package com.pitang.desafiopitangapi.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe Bloom filter of strings, sized for an expected number of values and false-positive rate.
+ * <p>
+ * {@link #mightContain(String)} never answers {@code false} for a value that was added, and answers
+ * {@code true} for a value that was not added with roughly the configured probability while the
+ * number of values stays within the capacity. Values cannot be removed.
+ * </p>
+ */
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final long capacity;
+    private final LongAdder insertions = new LongAdder();
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param capacity the expected number of values
+     * @param falsePositiveRate the expected false-positive rate once {@code capacity} values were added
+     */
+    BloomFilter(long capacity, double falsePositiveRate) {
+        this.capacity = Math.max(1, capacity);
+        long bits = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / this.capacity * LN2));
+    }
+
+    /**
+     * Adds a value to the filter.
+     *
+     * @param value the value, not null
+     */
+    void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            setBit(index(hash1 + i * hash2));
+        }
+        insertions.increment();
+    }
+
+    /**
+     * Checks whether the value may have been added to the filter.
+     *
+     * @param value the value, not null
+     * @return {@code false} if the value was definitely never added
+     */
+    boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = index(hash1 + i * hash2);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the current false-positive rate from the number of values added so far.
+     *
+     * @return the probability that an absent value is reported as present
+     */
+    double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashFunctions * (double) insertions.sum() / bitSize), hashFunctions);
+    }
+
+    /**
+     * Checks whether more values than the capacity were added, so the false-positive rate is above the configured one.
+     *
+     * @return {@code true} if the filter should be rebuilt with a larger capacity
+     */
+    boolean isSaturated() {
+        return insertions.sum() > capacity;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    long size() {
+        return insertions.sum();
+    }
+
+    private long index(long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % bitSize;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0)
+                return;
+        } while (!words.compareAndSet(word, current, current | mask));
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units of the value, finished with the MurmurHash3 mixer,
+     * so hashing does not allocate.
+     */
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
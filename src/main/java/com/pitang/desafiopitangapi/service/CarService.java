@@ -1,24 +1,37 @@
 package com.pitang.desafiopitangapi.service;
 
+import com.pitang.desafiopitangapi.config.UserPrincipal;
 import com.pitang.desafiopitangapi.domain.dto.CarDTO;
-import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.dto.UserVersionDTO;
 import com.pitang.desafiopitangapi.domain.mapper.CarMapper;
 import com.pitang.desafiopitangapi.exceptions.BusinessException;
 import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.ChangeLog;
 import com.pitang.desafiopitangapi.domain.model.User;
 import com.pitang.desafiopitangapi.repository.CarRepository;
 import com.pitang.desafiopitangapi.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -40,21 +53,59 @@ public class CarService {
 
     @Autowired
     CarMapper carMapper;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    UniquenessFilter uniquenessFilter;
+
+    @Autowired
+    FleetCache fleetCache;
+
+    @Autowired
+    InvalidationBus invalidationBus;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     /**
-     * Finds all cars associated with the logged-in user.
+     * Finds all cars associated with the logged-in user, served from the {@link FleetCache}
+     * while the fleet is still at the given ETag.
      *
      * @param request The HTTP request containing the user's authentication token.
-     * @return A list of cars associated with the logged-in user.
+     * @param fleetETag The current ETag of the fleet, from {@link #findFleetETag}; read here if null.
+     * @return An unmodifiable list of cars associated with the logged-in user.
+     * @throws BadCredentialsException if the user no longer exists.
      * @author Robson Rodrigues
      */
-    public List<CarDTO> findAllByLoggedUser(HttpServletRequest request) {
-        User user = getUserByToken(request);
-
-        return carRepository.findByUserIdOrderByUsageCountDescModelAsc(user.getId()).stream().map(obj -> Car.toDTO(obj)).collect(Collectors.toList());
+    public List<CarDTO> findAllByLoggedUser(HttpServletRequest request, String fleetETag) {
+        UserPrincipal user = getPrincipal(request);
+        if (fleetETag == null)
+            fleetETag = findFleetETag(request);
+        return fleetCache.get(user.id(), fleetETag, this::findAllByUserId);
 
         //return carRepository.findByUserIdOrderByUsageCountDescModelAsc(user.getId());
     }
 
+    private List<CarDTO> findAllByUserId(String userId) {
+        return carRepository.findByUserIdOrderByUsageCountDescModelAsc(userId).stream().map(obj -> Car.toDTO(obj)).collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the ETag of the logged-in user's fleet without loading the cars. The same query checks
+     * that the user of the token still exists.
+     *
+     * @author Robson Rodrigues
+     * @param request The HTTP request containing the user's authentication token.
+     * @return The quoted ETag of the fleet.
+     * @throws BadCredentialsException if the user no longer exists.
+     */
+    public String findFleetETag(HttpServletRequest request) {
+        return userRepository.findVersionById(getPrincipal(request).id()).map(UserVersionDTO::fleetETag)
+                .orElseThrow(() -> new BadCredentialsException("Invalid login"));
+    }
+
     /**
      * Finds a car by its ID and ensures it belongs to the logged-in user.
      *
@@ -63,16 +114,22 @@ public class CarService {
      * @param request The HTTP request containing the user's authentication token.
      * @return The car entity if found.
      * @throws EntityNotFoundException if the car is not found or does not belong to the logged-in user.
+     * @throws BadCredentialsException if the user no longer exists.
      */
     public Car findByIdAndLoggedUser(String id, HttpServletRequest request) {
-        User user = getUserByToken(request);
-        return carRepository.findByIdAndUserId(id, user.getId())
-                .orElseThrow(() -> new EntityNotFoundException("Car Not Found"));
+        UserPrincipal user = getPrincipal(request);
+        return carRepository.findByIdAndUserId(id, user.id()).orElseThrow(() -> {
+            // The cars of a deleted user are gone too, so only a miss needs to check the user.
+            if (!userRepository.existsById(user.id()))
+                return new BadCredentialsException("Invalid login");
+            return new EntityNotFoundException("Car Not Found");
+        });
     }
 
     /**
      * Registers a new car. Validates the car details, associates it with the logged-in user (based on token),
-     * and checks if the license plate is already in use.
+     * and checks if the license plate is already in use. The car is inserted and the owner's fleet version
+     * incremented in the same transaction.
      *
      * @author Robson Rodrigues
      * @param car The car to be registered.
@@ -80,19 +137,54 @@ public class CarService {
      * @return The saved car entity.
      * @throws BusinessException if the license plate already exists or if validation fails.
      */
+    @Transactional
     public Car register(Car car, HttpServletRequest request) {
         car.validate();
         if (request != null) {
-            User user = getUserByTokenUser(request);
-            car.setUser(user);
+            car.setUser(getUserReference(request));
         }
-        if (carRepository.existsByLicensePlate(car.getLicensePlate())) {
+        if (uniquenessFilter.licensePlateExists(car.getLicensePlate())) {
             throw new BusinessException("License plate already exists", HttpStatus.BAD_REQUEST);
         }
-        return carRepository.save(car);
+        Car savedCar;
+        try {
+            savedCar = carRepository.saveAndFlush(car);
+        } catch (DataIntegrityViolationException e) {
+            throw uniquenessFilter.translate(e);
+        }
+        uniquenessFilter.record(UniquenessFilter.Field.LICENSE_PLATE, savedCar.getLicensePlate());
+        if (savedCar.getUser() != null)
+            fleetChanged(savedCar.getUser().getId(), List.of());
+        return savedCar;
     }
 
 
+    /**
+     * Registers the cars of a new user in the current transaction. All license plates are checked with a
+     * single query and the cars are inserted in JDBC batches when the transaction is flushed.
+     *
+     * @author Robson Rodrigues
+     * @param cars The cars to be registered, already validated.
+     * @param owner The user who owns the cars.
+     * @return The saved car entities.
+     * @throws BusinessException if a license plate is repeated in the list or already exists.
+     */
+    @Transactional
+    public List<Car> registerAll(List<Car> cars, User owner) {
+        Set<String> licensePlates = new HashSet<>();
+        for (Car car : cars) {
+            if (!licensePlates.add(car.getLicensePlate()))
+                throw new BusinessException("License plate already exists", HttpStatus.BAD_REQUEST);
+            car.setUser(owner);
+        }
+        if (!uniquenessFilter.existingLicensePlates(licensePlates).isEmpty())
+            throw new BusinessException("License plate already exists", HttpStatus.BAD_REQUEST);
+
+        List<Car> savedCars = carRepository.saveAll(cars);
+        licensePlates.forEach(licensePlate -> uniquenessFilter.record(UniquenessFilter.Field.LICENSE_PLATE, licensePlate));
+        return savedCars;
+    }
+
     /**
      * Updates a car's details. The car is validated, and the user's token is verified before making the update.
      * It checks whether the new license plate is already in use.
@@ -105,32 +197,75 @@ public class CarService {
      * @throws EntityNotFoundException if the car does not exist or does not belong to the logged-in user.
      * @throws BusinessException if the license plate is already in use.
      */
+    @Transactional
     public Car update(String id, Car car, HttpServletRequest request) {
         car.setId(id);
         car.validate();
-        User user = getUserByTokenUser(request);
-        car.setUser(user);
-
-        for (Car validationCar : user.getCars()) {
-            if (validationCar.getId().equals(id)) {
-                if (!validationCar.getLicensePlate().equals(car.getLicensePlate()) && carRepository.existsByLicensePlate(car.getLicensePlate())) {
-                    throw new BusinessException("License plate already exists", HttpStatus.BAD_REQUEST);
-                }
-
-                if (Boolean.TRUE.equals(car.getUsage())) {
-                    List<Car> carsInUse = carRepository.findByUserIdAndUsageTrue(user.getId());
-                    for (Car inUseCar : carsInUse) {
-                        if (!inUseCar.getId().equals(car.getId())) {
-                            inUseCar.setUsage(false);
-                        }
-                    }
-                    carRepository.saveAll(carsInUse);
-                }
-
-                return carRepository.save(car);
-            }
+        UserPrincipal user = getPrincipal(request);
+        car.setUser(userRepository.getReferenceById(user.id()));
+
+        Car validationCar = carRepository.findByIdAndUserId(id, user.id())
+                .orElseThrow(() -> new EntityNotFoundException("Car Not Found"));
+        if (!validationCar.getLicensePlate().equals(car.getLicensePlate()) && uniquenessFilter.licensePlateExists(car.getLicensePlate())) {
+            throw new BusinessException("License plate already exists", HttpStatus.BAD_REQUEST);
         }
-        throw new EntityNotFoundException("Car Not Found");
+
+        List<String> changedIds = new ArrayList<>(List.of(id));
+        if (Boolean.TRUE.equals(car.getUsage())) {
+            userRepository.lockById(user.id());
+            changedIds.addAll(carRepository.findIdsInUseExcept(user.id(), id));
+            carRepository.releaseUsageExcept(user.id(), id);
+        }
+
+        Car savedCar;
+        try {
+            savedCar = carRepository.saveAndFlush(car);
+        } catch (DataIntegrityViolationException e) {
+            throw uniquenessFilter.translate(e);
+        }
+        uniquenessFilter.record(UniquenessFilter.Field.LICENSE_PLATE, savedCar.getLicensePlate());
+        fleetChanged(user.id(), changedIds);
+        return savedCar;
+    }
+
+    /**
+     * Marks a car of the logged-in user as the one in use, releasing any other car in use
+     * and incrementing the usage count of the chosen one.
+     *
+     * @author Robson Rodrigues
+     * @param id The ID of the car to be used.
+     * @param request The HTTP request containing the user's authentication token.
+     * @return The car entity after the update.
+     * @throws EntityNotFoundException if the car does not exist or does not belong to the logged-in user.
+     */
+    @Transactional
+    public Car use(String id, HttpServletRequest request) {
+        return useByUser(id, getPrincipal(request).id());
+    }
+
+    /**
+     * Marks a car of the given user as the one in use with two set-based updates in one transaction.
+     * The user's row is locked first, so concurrent calls for the same user are serialized and
+     * never leave two cars in use.
+     *
+     * @author Robson Rodrigues
+     * @param id The ID of the car to be used.
+     * @param userId The ID of the user who owns the car.
+     * @return The car entity after the update.
+     * @throws BadCredentialsException if the user does not exist.
+     * @throws EntityNotFoundException if the car does not exist or does not belong to the user.
+     */
+    @Transactional
+    public Car useByUser(String id, String userId) {
+        userRepository.lockById(userId).orElseThrow(() -> new BadCredentialsException("Invalid login"));
+        if (carRepository.markInUse(id, userId) == 0)
+            throw new EntityNotFoundException("Car Not Found");
+        List<String> changedIds = new ArrayList<>(List.of(id));
+        changedIds.addAll(carRepository.findIdsInUseExcept(userId, id));
+        carRepository.releaseUsageExcept(userId, id);
+        fleetChanged(userId, changedIds);
+        return carRepository.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new EntityNotFoundException("Car Not Found"));
     }
 
     /**
@@ -143,11 +278,12 @@ public class CarService {
      */
     @Transactional
     public void delete(String id, HttpServletRequest request) {
-        User user = getUserByTokenUser(request);
-        Car car = carRepository.findByIdAndUserId(id, user.getId())
+        UserPrincipal user = getPrincipal(request);
+        Car car = carRepository.findByIdAndUserId(id, user.id())
                 .orElseThrow(() -> new EntityNotFoundException("Car Not Found"));
 
         carRepository.delete(car);
+        fleetChanged(user.id(), List.of(id));
     }
 
     /**
@@ -158,6 +294,8 @@ public class CarService {
      */
     public void deleteByCar(Car car) {
         carRepository.delete(car);
+        if (car.getUser() != null)
+            fleetCache.invalidate(car.getUser().getId());
     }
 
     /**
@@ -174,29 +312,97 @@ public class CarService {
     }
 
     /**
-     * Retrieves the logged-in user based on the authentication token from the HTTP request.
+     * Retrieves the principal of the logged-in user, filled by the JWT filter from the token claims.
      *
      * @author Robson Rodrigues
      * @param request The HTTP request containing the authentication token.
-     * @return The user associated with the token.
-     * @throws BadCredentialsException if the token is invalid or the user is not found.
+     * @return The principal holding the user's id and login.
+     * @throws BadCredentialsException if the request is not authenticated with a user principal.
      */
-    public User getUserByToken(HttpServletRequest request) {
+    public UserPrincipal getPrincipal(HttpServletRequest request) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return userRepository.findByLogin(((UserDTO) auth.getPrincipal()).getLogin())
-                .orElseThrow(() -> new BadCredentialsException("Invalid login"));
+        if (auth == null || !(auth.getPrincipal() instanceof UserPrincipal principal))
+            throw new BadCredentialsException("Invalid login");
+        return principal;
     }
 
-    public User getUserByTokenUser(HttpServletRequest request) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return userRepository.findByLogin(((User) auth.getPrincipal()).getLogin())
-                .orElseThrow(() -> new BadCredentialsException("Invalid login"));
+    /**
+     * Gets a reference to the logged-in user to be used as the owner of a car,
+     * without loading the user from the database.
+     *
+     * @author Robson Rodrigues
+     * @param request The HTTP request containing the authentication token.
+     * @return A lazy reference to the logged-in user.
+     */
+    public User getUserReference(HttpServletRequest request) {
+        return userRepository.getReferenceById(getPrincipal(request).id());
     }
+
+    /**
+     * Marks every car in use as not in use with a single bulk UPDATE, without loading the cars.
+     * The fleet versions of their owners are incremented in the same transaction.
+     *
+     * @author Robson Rodrigues
+     * @return The number of cars that were reset.
+     */
     @Transactional
     public int resetCarUsage() {
-        List<Car> carsInUse = carRepository.findByUsageTrue();
-        carsInUse.forEach(car -> car.setUsage(false));
-        carRepository.saveAll(carsInUse);
-        return carsInUse.size();
+        userRepository.incrementFleetVersionOfUsersWithCarsInUse();
+        allFleetsChanged();
+        return carRepository.resetUsage();
+    }
+
+    /**
+     * Marks every car in use as not in use, committing in batches of at most {@code chunkSize} cars
+     * so a large reset does not hold a single long transaction.
+     *
+     * @author Robson Rodrigues
+     * @param chunkSize The maximum number of cars reset per transaction; {@code 0} or less resets all at once.
+     * @return The number of cars that were reset.
+     */
+    public int resetCarUsage(int chunkSize) {
+        if (chunkSize <= 0)
+            return resetCarUsage();
+
+        int total = 0;
+        while (true) {
+            Integer updated = transactionTemplate.execute(status -> {
+                List<String> ids = carRepository.findIdsByUsageTrue(PageRequest.of(0, chunkSize));
+                if (ids.isEmpty())
+                    return -1;
+                userRepository.incrementFleetVersionOfOwners(ids);
+                return carRepository.resetUsageByIds(ids);
+            });
+            if (updated == null || updated < 0) {
+                allFleetsChanged();
+                return total;
+            }
+            total += updated;
+        }
+    }
+
+    /**
+     * Increments the fleet version of a user and logs the change of the fleet and of each given car for the
+     * other nodes. The user and their list of cars are evicted from the second-level cache of this node once
+     * the transaction commits, since the fleet version is written with a statement Hibernate does not track.
+     */
+    private void fleetChanged(String userId, List<String> changedCarIds) {
+        userRepository.incrementFleetVersion(userId);
+        fleetCache.invalidate(userId);
+        invalidationBus.publish(ChangeLog.Type.FLEET, userId, null);
+        changedCarIds.forEach(carId -> invalidationBus.publish(ChangeLog.Type.CAR, carId, null));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+                cache.evictEntityData(User.class, userId);
+                cache.evictCollectionData(User.class.getName() + ".cars", userId);
+            }
+        });
+    }
+
+    private void allFleetsChanged() {
+        fleetCache.invalidateAll();
+        invalidationBus.publish(ChangeLog.Type.FLEET, null, null);
     }
 }
@@ -0,0 +1,48 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Formats supported by the export endpoints.
+ */
+public enum ExportFormat {
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Parses the {@code format} request parameter.
+     *
+     * @author Robson Rodrigues
+     * @param format the name of the format, case-insensitive
+     * @return the export format
+     * @throws BusinessException if the format is not supported
+     */
+    public static ExportFormat of(String format) {
+        try {
+            return valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new BusinessException("Invalid format", HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pitang.desafiopitangapi.domain.dto.CarExportDTO;
+import com.pitang.desafiopitangapi.domain.dto.UserExportDTO;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Service class that exports users and cars as CSV or NDJSON.
+ * <p>
+ * Rows are read as DTOs from a forward-only, read-only cursor and written to the output as they arrive,
+ * so memory use does not depend on the number of rows. Writes block while the client is not reading,
+ * which in turn stops the cursor: the output stream is the backpressure.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private final UserRepository userRepository;
+    private final CarRepository carRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Exports every user, ordered by ID, without their cars.
+     *
+     * @author Robson Rodrigues
+     * @param format The format of the export.
+     * @param out The stream receiving the export; it is flushed but not closed.
+     * @throws IOException if the export cannot be written.
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<UserExportDTO> rows = userRepository.streamExportRows()) {
+            write(format, rows.iterator(), UserExportDTO.CSV_HEADER, UserExportDTO::csvValues, out);
+        }
+    }
+
+    /**
+     * Exports the cars of a user, in the order of the fleet listing.
+     *
+     * @author Robson Rodrigues
+     * @param userId The ID of the user whose cars are exported.
+     * @param format The format of the export.
+     * @param out The stream receiving the export; it is flushed but not closed.
+     * @throws IOException if the export cannot be written.
+     */
+    @Transactional(readOnly = true)
+    public void exportCars(String userId, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<CarExportDTO> rows = carRepository.streamExportRowsByUserId(userId)) {
+            write(format, rows.iterator(), CarExportDTO.CSV_HEADER, CarExportDTO::csvValues, out);
+        }
+    }
+
+    private <T> void write(ExportFormat format, Iterator<T> rows, String[] header,
+                                  Function<T, Object[]> csvValues, OutputStream out) throws IOException {
+        if (format == ExportFormat.CSV)
+            writeCsv(rows, header, csvValues, out);
+        else
+            writeNdjson(rows, out);
+    }
+
+    private <T> void writeNdjson(Iterator<T> rows, OutputStream out) throws IOException {
+        // The application's mapper, but with dates as ISO strings rather than the arrays of the JSON responses.
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        int count = 0;
+        while (rows.hasNext()) {
+            writer.writeValue(buffered, rows.next());
+            buffered.write('\n');
+            if (++count % FLUSH_EVERY_ROWS == 0)
+                buffered.flush();
+        }
+        buffered.flush();
+    }
+
+    private static <T> void writeCsv(Iterator<T> rows, String[] header, Function<T, Object[]> csvValues,
+                                     OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writeCsvLine(writer, header);
+        int count = 0;
+        while (rows.hasNext()) {
+            writeCsvLine(writer, csvValues.apply(rows.next()));
+            if (++count % FLUSH_EVERY_ROWS == 0)
+                writer.flush();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0)
+                writer.write(',');
+            if (values[i] != null)
+                writeCsvValue(writer, values[i].toString());
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Writes a value as defined by RFC 4180: quoted, with inner quotes doubled, when it contains
+     * a separator, a quote or a line break.
+     */
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,149 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.pitang.desafiopitangapi.domain.dto.CarDTO;
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cache of the sorted car list of each user, as returned by {@code GET /cars}.
+ * <p>
+ * Each entry is tagged with the fleet ETag it was loaded at and only served for the same ETag, so a fleet
+ * changed by another instance, or by a write racing with the load, is never served stale. {@link CarService}
+ * also evicts the entry of a user on every change to their cars, so memory is not held by outdated lists.
+ * Concurrent misses for the same fleet and ETag share a single load through a {@link SingleFlight}.
+ * The cache is bounded by an estimate of the memory used by each entry ({@code api.cars.fleet-cache.max-size}),
+ * so a few users with large fleets cannot crowd out many users with small ones.
+ * </p>
+ */
+@Component
+public class FleetCache implements MeterBinder {
+
+    /**
+     * Estimated bytes of an entry without its cars: the cache node, the key, the entry and the list.
+     */
+    static final int ENTRY_BYTES = 160;
+
+    /**
+     * Estimated bytes of a car without its strings: the DTO, its boxed fields and the list slot.
+     */
+    static final int CAR_BYTES = 64;
+
+    private final StatsCounter stats = new ConcurrentStatsCounter();
+    private final Cache<String, Fleet> cache;
+    private final SingleFlight<FleetKey, List<CarDTO>> loads;
+
+    public FleetCache(@Value("${api.cars.fleet-cache.max-size:32MB}") DataSize maxSize,
+                      @Value("${api.cars.fleet-cache.ttl:PT10M}") Duration ttl,
+                      @Value("${api.single-flight.timeout:PT5S}") Duration loadTimeout) {
+        this.loads = new SingleFlight<>("fleets", loadTimeout);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher(FleetCache::estimateBytes)
+                .expireAfterWrite(ttl)
+                .recordStats(() -> stats)
+                .build();
+    }
+
+    /**
+     * Publishes the hit, miss and eviction statistics of the cache as {@code cache.*} meters,
+     * and the estimated memory held by the cached fleets as {@code fleet.cache.size}.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "fleets");
+        Gauge.builder("fleet.cache.size", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .description("Estimated memory held by the cached fleets")
+                .baseUnit("bytes")
+                .register(registry);
+        loads.bindTo(registry);
+    }
+
+    /**
+     * Retrieves the cars of a user at the given fleet ETag, loading them on a miss.
+     *
+     * @author Robson Rodrigues
+     * @param userId The ID of the user.
+     * @param eTag The current ETag of the user's fleet, read before the cars.
+     * @param loader Loads the sorted cars of the user.
+     * @return The unmodifiable, sorted list of cars.
+     * @throws BusinessException with status {@code SERVICE_UNAVAILABLE} if the shared load does not end in time.
+     */
+    public List<CarDTO> get(String userId, String eTag, Function<String, List<CarDTO>> loader) {
+        // Read through the map view so a cached fleet of another version is counted as a miss.
+        Fleet fleet = cache.asMap().get(userId);
+        if (fleet != null && fleet.eTag().equals(eTag)) {
+            stats.recordHits(1);
+            return fleet.cars();
+        }
+        stats.recordMisses(1);
+        return loads.load(new FleetKey(userId, eTag), key -> {
+            long start = System.nanoTime();
+            List<CarDTO> cars = List.copyOf(loader.apply(key.userId()));
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            cache.put(key.userId(), new Fleet(key.eTag(), cars));
+            return cars;
+        });
+    }
+
+    /**
+     * Removes the cached fleet of a user, if any.
+     *
+     * @author Robson Rodrigues
+     * @param userId The ID of the user whose cars changed.
+     */
+    public void invalidate(String userId) {
+        if (userId != null)
+            cache.invalidate(userId);
+    }
+
+    /**
+     * Removes every cached fleet, after a change to the cars of many users.
+     *
+     * @author Robson Rodrigues
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Estimates the memory held by a cached fleet, counting strings as compact Latin-1 strings.
+     *
+     * @author Robson Rodrigues
+     * @param userId the key of the entry
+     * @param fleet the cached fleet
+     * @return the estimated size in bytes
+     */
+    static int estimateBytes(String userId, Fleet fleet) {
+        long bytes = ENTRY_BYTES + stringBytes(userId) + stringBytes(fleet.eTag());
+        for (CarDTO car : fleet.cars()) {
+            bytes += CAR_BYTES + stringBytes(car.getId()) + stringBytes(car.getLicensePlate())
+                    + stringBytes(car.getModel()) + stringBytes(car.getColor());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static long stringBytes(String value) {
+        // String object and its byte array, each with a header, rounded up to 8 bytes.
+        return value == null ? 0 : 40 + ((value.length() + 7) & ~7);
+    }
+
+    record Fleet(String eTag, List<CarDTO> cars) {
+    }
+
+    private record FleetKey(String userId, String eTag) {
+    }
+}
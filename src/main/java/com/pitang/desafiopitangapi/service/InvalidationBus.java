@@ -0,0 +1,236 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.ChangeLog;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.ChangeLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the in-memory caches of every node of the cluster consistent with the writes made on the others.
+ * <p>
+ * Writes to users and cars append a {@link ChangeLog} entry, in the same transaction as the change when there
+ * is one. Each node reads the entries appended after the last sequence it has seen, every
+ * {@code api.change-log.poll-interval}, through the primary key, and evicts the matching entries of the
+ * {@link UserPrincipalCache}, the {@link FleetCache} and the Hibernate second-level and query caches; entries
+ * of the node itself are skipped, since it evicted its caches when it wrote. A sequence skipped by a transaction that had not committed yet is read again on
+ * the next polls, until {@code api.change-log.gap-timeout} has passed. Entries older than
+ * {@code api.change-log.retention} are removed by a scheduled job.
+ * </p>
+ */
+@Slf4j
+@Component
+public class InvalidationBus {
+
+    /**
+     * Maximum number of skipped sequences tracked at once; a node restarting with a sequence cache
+     * may skip many values that will never be used.
+     */
+    static final int MAX_GAPS = 1000;
+
+    private static final String USER_CARS_ROLE = User.class.getName() + ".cars";
+
+    private final ChangeLogRepository changeLogRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final FleetCache fleetCache;
+    private final Cache secondLevelCache;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final String origin;
+    private final Timer pollTimer;
+    private final Map<ChangeLog.Type, Counter> published = new EnumMap<>(ChangeLog.Type.class);
+    private final Map<ChangeLog.Type, Counter> applied = new EnumMap<>(ChangeLog.Type.class);
+    private final Map<Long, Instant> gaps = new HashMap<>();
+    private long position = -1;
+    private final ScheduledExecutorService pollExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-log-poll");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InvalidationBus(ChangeLogRepository changeLogRepository,
+                           UserPrincipalCache userPrincipalCache,
+                           FleetCache fleetCache,
+                           EntityManagerFactory entityManagerFactory,
+                           MeterRegistry meterRegistry,
+                           @Value("${api.change-log.poll-interval:PT1S}") Duration pollInterval,
+                           @Value("${api.change-log.batch-size:500}") int batchSize,
+                           @Value("${api.change-log.gap-timeout:PT1M}") Duration gapTimeout,
+                           @Value("${api.change-log.retention:PT1H}") Duration retention) {
+        this.changeLogRepository = changeLogRepository;
+        this.userPrincipalCache = userPrincipalCache;
+        this.fleetCache = fleetCache;
+        this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.batchSize = Math.max(1, batchSize);
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.origin = hostName() + ":" + UUID.randomUUID();
+        this.pollTimer = Timer.builder("change.log.poll")
+                .description("Time to read and apply the changes made by other nodes")
+                .register(meterRegistry);
+        for (ChangeLog.Type type : ChangeLog.Type.values()) {
+            published.put(type, Counter.builder("change.log.published").tag("type", type.name().toLowerCase())
+                    .description("Changes appended for the other nodes").register(meterRegistry));
+            applied.put(type, Counter.builder("change.log.applied").tag("type", type.name().toLowerCase())
+                    .description("Changes of other nodes applied to the local caches").register(meterRegistry));
+        }
+        Gauge.builder("change.log.gaps", this, bus -> bus.gapCount())
+                .description("Skipped sequences waiting for their transaction to commit")
+                .register(meterRegistry);
+        long interval = Math.max(1, pollInterval.toMillis());
+        pollExecutor.scheduleWithFixedDelay(this::pollSafely, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends a change for the other nodes, joining the current transaction if there is one.
+     * The caches of this node are not touched; the caller evicts them.
+     *
+     * @author Robson Rodrigues
+     * @param type The kind of data that changed.
+     * @param entityId The ID of the changed user, owner or car, or null for the cars of every user.
+     * @param entityVersion The version of the entity after the change, or null if unknown or deleted.
+     */
+    public void publish(ChangeLog.Type type, String entityId, Long entityVersion) {
+        changeLogRepository.save(new ChangeLog(null, type, entityId, entityVersion, origin, Instant.now()));
+        published.get(type).increment();
+    }
+
+    /**
+     * Reads the changes appended since the last poll, and those skipped by earlier polls, and applies
+     * the ones made by other nodes. The first poll only records the current end of the log.
+     *
+     * @author Robson Rodrigues
+     * @return The number of changes applied.
+     */
+    public synchronized int poll() {
+        if (position < 0) {
+            Long max = changeLogRepository.findMaxSequence();
+            position = max == null ? 0 : max;
+            return 0;
+        }
+
+        List<ChangeLog> changes = new ArrayList<>();
+        if (!gaps.isEmpty()) {
+            List<ChangeLog> late = changeLogRepository.findBySequences(List.copyOf(gaps.keySet()));
+            late.forEach(change -> gaps.remove(change.getSequence()));
+            changes.addAll(late);
+        }
+
+        Instant now = Instant.now();
+        List<ChangeLog> next;
+        do {
+            next = changeLogRepository.findAfter(position, PageRequest.of(0, batchSize));
+            for (ChangeLog change : next) {
+                for (long skipped = position + 1; skipped < change.getSequence() && gaps.size() < MAX_GAPS; skipped++) {
+                    gaps.put(skipped, now);
+                }
+                position = change.getSequence();
+            }
+            changes.addAll(next);
+        } while (next.size() == batchSize);
+        gaps.values().removeIf(seenAt -> seenAt.plus(gapTimeout).isBefore(now));
+
+        int count = 0;
+        for (ChangeLog change : changes) {
+            if (!origin.equals(change.getOrigin())) {
+                apply(change);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes the changes older than the retention, which every node has read by then.
+     *
+     * @author Robson Rodrigues
+     * @return The number of changes removed.
+     */
+    public int prune() {
+        return changeLogRepository.deleteOlderThan(Instant.now().minus(retention));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pollExecutor.shutdownNow();
+    }
+
+    private void apply(ChangeLog change) {
+        String id = change.getEntityId();
+        switch (change.getType()) {
+            case USER -> {
+                secondLevelCache.evictEntityData(User.class, id);
+                secondLevelCache.evictCollectionData(USER_CARS_ROLE, id);
+                // The login may have changed, so cached lookups by login may point to the wrong user.
+                secondLevelCache.evictDefaultQueryRegion();
+                if (change.getEntityVersion() == null)
+                    secondLevelCache.evictEntityData(Car.class);
+                // Last, so a principal loaded from now on reads the user from the database.
+                userPrincipalCache.invalidateById(id, change.getEntityVersion());
+                fleetCache.invalidate(id);
+            }
+            case FLEET -> {
+                // The fleet version of the owners changed too.
+                if (id == null) {
+                    fleetCache.invalidateAll();
+                    secondLevelCache.evictCollectionData(USER_CARS_ROLE);
+                    secondLevelCache.evictEntityData(User.class);
+                    // Only written by usage resets, which do not log the IDs of the cars.
+                    secondLevelCache.evictEntityData(Car.class);
+                } else {
+                    fleetCache.invalidate(id);
+                    secondLevelCache.evictCollectionData(USER_CARS_ROLE, id);
+                    secondLevelCache.evictEntityData(User.class, id);
+                }
+            }
+            case CAR -> secondLevelCache.evictEntityData(Car.class, id);
+        }
+        applied.get(change.getType()).increment();
+    }
+
+    private synchronized int gapCount() {
+        return gaps.size();
+    }
+
+    private void pollSafely() {
+        try {
+            pollTimer.record(this::poll);
+        } catch (RuntimeException e) {
+            log.error("Error while reading the change log: {}", e.getMessage(), e);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.domain.model.ChangeLog;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer of the last login dates of users.
+ * <p>
+ * Sign-in only records the login in memory; repeated logins of the same user are coalesced into one entry.
+ * The entries are written by a background thread every {@code api.last-login.flush-interval}, or as soon as
+ * {@code api.last-login.max-pending} users are waiting, with one {@code UPDATE ... WHERE USER_ID IN (...)}
+ * per date and chunk of IDs. The written users are evicted from the second-level cache of this node only:
+ * no {@link ChangeLog} entry is appended, so the other nodes keep serving the users they cached, with a last
+ * login at most {@code api.jpa.cache.ttl} old, instead of reloading them after every flush. Pending entries are
+ * flushed on shutdown; entries whose write fails are kept for the next flush.
+ * </p>
+ */
+@Slf4j
+@Component
+public class LastLoginRecorder {
+
+    private static final int MAX_IDS_PER_UPDATE = 500;
+
+    private final UserRepository userRepository;
+    private final Cache secondLevelCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPending;
+    private final Timer flushTimer;
+    private final Map<String, LocalDate> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "last-login-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LastLoginRecorder(UserRepository userRepository,
+                             EntityManagerFactory entityManagerFactory,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${api.last-login.flush-interval:PT5S}") Duration flushInterval,
+                             @Value("${api.last-login.max-pending:1000}") int maxPending) {
+        this.userRepository = userRepository;
+        this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.transactionTemplate = transactionTemplate;
+        this.maxPending = Math.max(1, maxPending);
+        this.flushTimer = Timer.builder("last.login.flush")
+                .description("Time to write the pending last login dates")
+                .register(meterRegistry);
+        Gauge.builder("last.login.pending", pending, Map::size)
+                .description("Users whose last login date is waiting to be written")
+                .register(meterRegistry);
+        long interval = Math.max(1, flushInterval.toMillis());
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records that a user signed in today. Returns immediately; the date is written later.
+     *
+     * @author Robson Rodrigues
+     * @param userId The ID of the user who signed in.
+     */
+    public void record(String userId) {
+        pending.put(userId, LocalDate.now());
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true))
+            flushExecutor.execute(this::flushSafely);
+    }
+
+    /**
+     * Writes every pending last login date.
+     *
+     * @author Robson Rodrigues
+     * @return The number of users updated.
+     */
+    public synchronized int flush() {
+        flushRequested.set(false);
+        if (pending.isEmpty())
+            return 0;
+
+        Map<LocalDate, List<String>> idsByDate = new HashMap<>();
+        for (String userId : List.copyOf(pending.keySet())) {
+            LocalDate date = pending.remove(userId);
+            if (date != null)
+                idsByDate.computeIfAbsent(date, key -> new ArrayList<>()).add(userId);
+        }
+        try {
+            int updated = flushTimer.record(() -> transactionTemplate.execute(status -> update(idsByDate)));
+            idsByDate.values().forEach(ids -> ids.forEach(id -> secondLevelCache.evictEntityData(User.class, id)));
+            return updated;
+        } catch (RuntimeException e) {
+            // Keep the dates for the next flush, unless a newer login was recorded meanwhile.
+            idsByDate.forEach((date, ids) -> ids.forEach(id -> pending.merge(id, date, (newer, older) -> newer)));
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+    }
+
+    private int update(Map<LocalDate, List<String>> idsByDate) {
+        int updated = 0;
+        for (Map.Entry<LocalDate, List<String>> entry : idsByDate.entrySet()) {
+            List<String> ids = entry.getValue();
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_UPDATE) {
+                List<String> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_UPDATE));
+                updated += userRepository.updateLastLogin(chunk, entry.getKey());
+            }
+        }
+        return updated;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Error while writing {} last login dates: {}", pending.size(), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.config.PasswordConfig;
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the password hashing of sign-in and registration on a dedicated, bounded pool instead of
+ * the request threads.
+ * <p>
+ * BCrypt is deliberately slow, so a burst of logins running on request threads could take all of them
+ * and stall every other endpoint. Here at most {@code api.security.hash.threads} hashes run at once and
+ * at most {@code api.security.hash.queue-capacity} wait; beyond that the request is refused immediately
+ * with {@code 503 Service Unavailable} instead of queueing without limit. A sign-in also loads its user on
+ * the pool through {@link #verify}, so a refused login costs its request thread no database work and an
+ * accepted one releases it at once.
+ * </p>
+ * <p>
+ * The time of every hash is recorded in the {@code password.hash} histogram, tagged by operation, with the
+ * configured target time as a service level objective, so the calibration of {@link PasswordConfig} can be
+ * checked against production latencies.
+ * </p>
+ */
+@Component
+public class PasswordHasher {
+
+    static final String BUSY_MESSAGE = "Server busy, try again later";
+
+    private final PasswordEncoder passwordEncoder;
+    private final int strength;
+    private final int poolSize;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          PasswordConfig passwordConfig,
+                          MeterRegistry meterRegistry,
+                          @Value("${api.security.hash.threads:0}") int threads,
+                          @Value("${api.security.hash.queue-capacity:64}") int queueCapacity,
+                          @Value("${api.security.hash.target-time:PT0.1S}") Duration targetTime) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = passwordConfig.strength();
+        this.poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "password.hash", Tags.empty()).bindTo(meterRegistry);
+        this.rejected = Counter.builder("password.hash.rejected")
+                .description("Hashing requests refused because the pool and its queue were full")
+                .register(meterRegistry);
+        this.encodeTimer = hashTimer("encode", targetTime, meterRegistry);
+        this.matchesTimer = hashTimer("matches", targetTime, meterRegistry);
+    }
+
+    private Timer hashTimer(String operation, Duration targetTime, MeterRegistry meterRegistry) {
+        return Timer.builder("password.hash")
+                .description("Time spent hashing a password, excluding the wait in the queue")
+                .tag("operation", operation)
+                .tag("strength", String.valueOf(strength))
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(targetTime)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Gets the number of threads of the hashing pool, that is, how many hashes run at once.
+     *
+     * @author Robson Rodrigues
+     * @return The size of the pool.
+     */
+    public int poolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Hashes a raw password on the hashing pool.
+     *
+     * @author Robson Rodrigues
+     * @param rawPassword The password to be hashed.
+     * @return A future completed with the hash, on a hashing thread.
+     * @throws BusinessException with status {@code SERVICE_UNAVAILABLE} if the pool is saturated.
+     */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Checks a raw password against a stored hash on the hashing pool.
+     *
+     * @author Robson Rodrigues
+     * @param rawPassword The password sent by the client.
+     * @param encodedPassword The stored hash.
+     * @return A future completed with whether the password matches, on a hashing thread.
+     * @throws BusinessException with status {@code SERVICE_UNAVAILABLE} if the pool is saturated.
+     */
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Loads an account and checks a raw password against its stored hash, both on the hashing pool, so the
+     * calling thread neither queries the database nor waits for the hash.
+     *
+     * @author Robson Rodrigues
+     * @param rawPassword The password sent by the client.
+     * @param loader Looks up the account, run on a hashing thread.
+     * @param encodedPassword Extracts the stored hash from the account.
+     * @return A future completed with the account if it exists and the password matches, empty otherwise.
+     * @throws BusinessException with status {@code SERVICE_UNAVAILABLE} if the pool is saturated.
+     */
+    public <T> CompletableFuture<Optional<T>> verify(String rawPassword, Supplier<Optional<T>> loader,
+                                                     Function<T, String> encodedPassword) {
+        return submit(() -> loader.get().filter(account -> matchesTimer.record(
+                () -> passwordEncoder.matches(rawPassword, encodedPassword.apply(account)))));
+    }
+
+    /**
+     * Checks whether a stored hash was created with a strength below the current one, so it should be
+     * replaced the next time the raw password is known.
+     * <p>
+     * Stronger hashes are kept: the strength may be calibrated differently on each node, and replacing every
+     * hash of another strength would make nodes rewrite each other's hashes on every sign-in.
+     * </p>
+     *
+     * @author Robson Rodrigues
+     * @param encodedPassword The stored hash.
+     * @return {@code true} if the hash is not a BCrypt hash of at least the current strength.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        // BCrypt hashes look like $2a$10$..., the two digits after the version being the strength.
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(6) != '$')
+            return true;
+        char tens = encodedPassword.charAt(4);
+        char units = encodedPassword.charAt(5);
+        if (tens < '0' || tens > '9' || units < '0' || units > '9')
+            return true;
+        return (tens - '0') * 10 + (units - '0') < strength;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusinessException(BUSY_MESSAGE, HttpStatus.SERVICE_UNAVAILABLE, false);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.repository.SchedulerLockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Service class that guarantees a scheduled job runs on a single node of the cluster at a time.
+ * <p>
+ * Each job owns a row in the {@code SCHEDULER_LOCK} table. A node runs the job only if it manages to
+ * move the row's lease forward, which the database does atomically for exactly one node. The lease
+ * expires on its own if the node dies, and the outcome of every run is recorded in the row and
+ * published as metrics.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SchedulerLockService {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String owner;
+    private final Map<String, JobRun> lastRuns = new ConcurrentHashMap<>();
+
+    public SchedulerLockService(SchedulerLockRepository schedulerLockRepository,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry) {
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.owner = hostName() + ":" + UUID.randomUUID();
+    }
+
+    /**
+     * Runs the task if this node acquires the lock of the job, and records the outcome.
+     *
+     * @author Robson Rodrigues
+     * @param name The name of the job.
+     * @param lockAtMostFor How long the lock is held if the node dies while running the task.
+     * @param lockAtLeastFor How long the lock is kept after the task ends, so nodes whose clocks
+     *                       fire slightly later do not run the job again.
+     * @param task The task to run, returning the number of affected rows.
+     * @return The number of affected rows, or empty if another node holds the lock.
+     */
+    public OptionalInt runExclusively(String name, Duration lockAtMostFor, Duration lockAtLeastFor, IntSupplier task) {
+        Instant startedAt = Instant.now();
+        if (!tryAcquire(name, startedAt, startedAt.plus(lockAtMostFor))) {
+            counter(name, "skipped").increment();
+            return OptionalInt.empty();
+        }
+
+        Integer rows = null;
+        try {
+            rows = task.getAsInt();
+            counter(name, "executed").increment();
+            return OptionalInt.of(rows);
+        } catch (RuntimeException e) {
+            counter(name, "failed").increment();
+            throw e;
+        } finally {
+            release(name, startedAt, lockAtLeastFor, rows);
+        }
+    }
+
+    private boolean tryAcquire(String name, Instant now, Instant lockedUntil) {
+        Integer acquired = transactionTemplate.execute(status ->
+                schedulerLockRepository.acquire(name, now, lockedUntil, owner));
+        if (acquired != null && acquired == 1)
+            return true;
+        if (schedulerLockRepository.existsById(name))
+            return false;
+        try {
+            transactionTemplate.execute(status -> schedulerLockRepository.insert(name, now, lockedUntil, owner));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private void release(String name, Instant startedAt, Duration lockAtLeastFor, Integer rows) {
+        Instant finishedAt = Instant.now();
+        Instant minimumLease = startedAt.plus(lockAtLeastFor);
+        Instant lockedUntil = finishedAt.isAfter(minimumLease) ? finishedAt : minimumLease;
+        long durationMs = Duration.between(startedAt, finishedAt).toMillis();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    schedulerLockRepository.release(name, owner, lockedUntil, startedAt, durationMs, rows));
+        } catch (RuntimeException e) {
+            log.error("Error while releasing scheduler lock {}: {}", name, e.getMessage(), e);
+        }
+        JobRun run = lastRuns.computeIfAbsent(name, this::registerGauges);
+        run.lastRunAt = startedAt.toEpochMilli() / 1000.0;
+        run.lastDurationMs = durationMs;
+        run.lastRowsAffected = rows == null ? Double.NaN : rows;
+    }
+
+    private JobRun registerGauges(String name) {
+        JobRun run = new JobRun();
+        Gauge.builder("scheduler.job.last.run", run, r -> r.lastRunAt)
+                .description("Epoch seconds of the last run of the job on this node")
+                .baseUnit("seconds").tag("job", name).register(meterRegistry);
+        Gauge.builder("scheduler.job.last.duration", run, r -> r.lastDurationMs)
+                .description("Duration of the last run of the job on this node")
+                .baseUnit("milliseconds").tag("job", name).register(meterRegistry);
+        Gauge.builder("scheduler.job.last.rows", run, r -> r.lastRowsAffected)
+                .description("Rows affected by the last run of the job on this node")
+                .tag("job", name).register(meterRegistry);
+        return run;
+    }
+
+    private Counter counter(String name, String outcome) {
+        return Counter.builder("scheduler.job.executions")
+                .description("Scheduled job triggers by outcome")
+                .tag("job", name).tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+    private static final class JobRun {
+        private volatile double lastRunAt = Double.NaN;
+        private volatile double lastDurationMs = Double.NaN;
+        private volatile double lastRowsAffected = Double.NaN;
+    }
+}
@@ -0,0 +1,132 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent loads of the same key into a single one.
+ * <p>
+ * The first caller of a key runs the load on its own thread; callers arriving while it is in flight wait
+ * for its result, or its exception, for at most the configured timeout and then fail with
+ * {@code SERVICE_UNAVAILABLE} instead of piling up on a slow query. Nothing is kept once the load ends:
+ * caching the result is up to the loader.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the loaded values
+ */
+public class SingleFlight<K, V> implements MeterBinder {
+
+    private final String name;
+    private final Duration timeout;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public SingleFlight(String name, Duration timeout) {
+        this.name = name;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Publishes the loads executed, collapsed into another one and timed out as {@code single.flight.loads},
+     * and the loads in flight as {@code single.flight.in.flight}, tagged with the name of the loader.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "executed", executed);
+        counter(registry, "collapsed", collapsed);
+        counter(registry, "timeout", timedOut);
+        Gauge.builder("single.flight.in.flight", inFlight, Map::size)
+                .tag("name", name)
+                .description("Loads currently in flight")
+                .register(registry);
+    }
+
+    /**
+     * Loads the value of a key, sharing the load already in flight for the same key if there is one.
+     *
+     * @author Robson Rodrigues
+     * @param key The key to load.
+     * @param loader Loads the value of the key; run by the first caller only.
+     * @return The loaded value, which may be null.
+     * @throws BusinessException with status {@code SERVICE_UNAVAILABLE} if the shared load does not end in time.
+     */
+    public V load(K key, Function<K, V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing == null) {
+            executed.increment();
+            try {
+                V value = loader.apply(key);
+                future.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, future);
+            }
+        }
+
+        collapsed.increment();
+        try {
+            return existing.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new BusinessException("Server busy, try again later", HttpStatus.SERVICE_UNAVAILABLE, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Server busy, try again later", HttpStatus.SERVICE_UNAVAILABLE, false);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Detaches the load in flight for a key, if any, so callers arriving from now on start a new one
+     * instead of sharing a result read before a change.
+     *
+     * @author Robson Rodrigues
+     * @param key The key whose data changed.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Detaches every load in flight, for changes whose key is not known.
+     *
+     * @author Robson Rodrigues
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    private void counter(MeterRegistry registry, String result, LongAdder count) {
+        FunctionCounter.builder("single.flight.loads", count, LongAdder::sum)
+                .tag("name", name)
+                .tag("result", result)
+                .description("Loads executed, collapsed into a load in flight, or timed out waiting for it")
+                .register(registry);
+    }
+}
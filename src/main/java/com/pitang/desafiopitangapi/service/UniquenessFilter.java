@@ -0,0 +1,358 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filters in front of the license plate, login and email uniqueness queries.
+ * <p>
+ * A value the filter has never seen is reported as new without querying the database; any other value
+ * is checked with the usual {@code exists} query. The filters are built in the background once the
+ * application is ready, by streaming the tables, and every saved value is added to them. Until a filter
+ * is built every check goes to the database. The unique constraints of the tables remain the final
+ * authority: a value saved by another node, or committed while a filter was being rebuilt, is rejected
+ * by the database and reported by {@link #translate(DataIntegrityViolationException)}.
+ * </p>
+ */
+@Slf4j
+@Component
+public class UniquenessFilter {
+
+    /**
+     * The unique values guarded by a filter.
+     */
+    public enum Field {
+        LICENSE_PLATE("UK_CAR_LICENSE_PLATE", "License plate already exists"),
+        LOGIN("UK_USERS_LOGIN", "Login already exists"),
+        EMAIL("UK_USERS_EMAIL", "Email already exists");
+
+        private final String constraint;
+        private final String duplicateMessage;
+
+        Field(String constraint, String duplicateMessage) {
+            this.constraint = constraint;
+            this.duplicateMessage = duplicateMessage;
+        }
+    }
+
+    private final CarRepository carRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+    private final double falsePositiveRate;
+    private final long minCapacity;
+    private final Map<Field, Slot> slots = new EnumMap<>(Field.class);
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uniqueness-filter-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UniquenessFilter(CarRepository carRepository,
+                            UserRepository userRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${api.uniqueness.filter.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${api.uniqueness.filter.min-capacity:100000}") long minCapacity) {
+        this.carRepository = carRepository;
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = minCapacity;
+        for (Field field : Field.values()) {
+            slots.put(field, new Slot(field));
+        }
+    }
+
+    /**
+     * Builds the filters in the background once the application is ready to serve requests.
+     *
+     * @author Robson Rodrigues
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        slots.values().forEach(this::scheduleRebuild);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Checks if a car with the given license plate exists, querying the database only if the filter may contain it.
+     *
+     * @author Robson Rodrigues
+     * @param licensePlate The license plate to be checked.
+     * @return {@code true} if a car with the given license plate exists, {@code false} otherwise.
+     */
+    public boolean licensePlateExists(String licensePlate) {
+        return exists(Field.LICENSE_PLATE, licensePlate, carRepository::existsByLicensePlate);
+    }
+
+    /**
+     * Finds which of the given license plates are already used, with a single query for the plates
+     * the filter may contain and no query at all if it contains none of them.
+     *
+     * @author Robson Rodrigues
+     * @param licensePlates The license plates to be checked.
+     * @return The license plates that already exist.
+     */
+    public Set<String> existingLicensePlates(Collection<String> licensePlates) {
+        return existing(Field.LICENSE_PLATE, licensePlates, carRepository::findExistingLicensePlates);
+    }
+
+    /**
+     * Finds which of the given logins are already used, with a single query for the logins
+     * the filter may contain and no query at all if it contains none of them.
+     *
+     * @author Robson Rodrigues
+     * @param logins The logins to be checked.
+     * @return The logins that already exist.
+     */
+    public Set<String> existingLogins(Collection<String> logins) {
+        return existing(Field.LOGIN, logins, userRepository::findExistingLogins);
+    }
+
+    /**
+     * Finds which of the given emails are already used, with a single query for the emails
+     * the filter may contain and no query at all if it contains none of them.
+     *
+     * @author Robson Rodrigues
+     * @param emails The emails to be checked.
+     * @return The emails that already exist.
+     */
+    public Set<String> existingEmails(Collection<String> emails) {
+        return existing(Field.EMAIL, emails, userRepository::findExistingEmails);
+    }
+
+    /**
+     * Checks if a user with the given login exists, querying the database only if the filter may contain it.
+     *
+     * @author Robson Rodrigues
+     * @param login The login to be checked.
+     * @return {@code true} if a user with the given login exists, {@code false} otherwise.
+     */
+    public boolean loginExists(String login) {
+        return exists(Field.LOGIN, login, userRepository::existsByLogin);
+    }
+
+    /**
+     * Checks if a user with the given email exists, querying the database only if the filter may contain it.
+     *
+     * @author Robson Rodrigues
+     * @param email The email to be checked.
+     * @return {@code true} if a user with the given email exists, {@code false} otherwise.
+     */
+    public boolean emailExists(String email) {
+        return exists(Field.EMAIL, email, userRepository::existsByEmail);
+    }
+
+    /**
+     * Adds a saved value to the filter of the field, rebuilding the filter with a larger capacity
+     * in the background once it holds more values than it was sized for.
+     *
+     * @author Robson Rodrigues
+     * @param field The field of the value.
+     * @param value The saved value.
+     */
+    public void record(Field field, String value) {
+        if (value == null)
+            return;
+        Slot slot = slots.get(field);
+        BloomFilter filter = slot.filter;
+        if (filter != null) {
+            filter.put(value);
+            if (filter.isSaturated())
+                scheduleRebuild(slot);
+        }
+        BloomFilter pending = slot.pending;
+        if (pending != null)
+            pending.put(value);
+    }
+
+    /**
+     * Converts the violation of a unique constraint guarded by a filter into the same error the
+     * {@code exists} check would have raised.
+     *
+     * @author Robson Rodrigues
+     * @param e The exception raised by the database.
+     * @return A {@link BusinessException} for a duplicated license plate, login or email, or the exception itself otherwise.
+     */
+    public RuntimeException translate(DataIntegrityViolationException e) {
+        String message = String.valueOf(e.getMostSpecificCause().getMessage()).toUpperCase(Locale.ROOT);
+        for (Field field : Field.values()) {
+            if (message.contains(field.constraint))
+                return new BusinessException(field.duplicateMessage, HttpStatus.BAD_REQUEST);
+        }
+        return e;
+    }
+
+    /**
+     * Rebuilds every filter from the database in the calling thread.
+     *
+     * @author Robson Rodrigues
+     */
+    public void rebuildAll() {
+        slots.values().forEach(this::rebuild);
+    }
+
+    private boolean exists(Field field, String value, Predicate<String> query) {
+        Slot slot = slots.get(field);
+        BloomFilter filter = slot.filter;
+        if (filter != null && value != null && !filter.mightContain(value)) {
+            slot.absent.increment();
+            return false;
+        }
+        boolean exists = query.test(value);
+        if (filter != null)
+            (exists ? slot.present : slot.falsePositive).increment();
+        return exists;
+    }
+
+    private Set<String> existing(Field field, Collection<String> values, Function<Collection<String>, List<String>> query) {
+        Slot slot = slots.get(field);
+        BloomFilter filter = slot.filter;
+        List<String> candidates = new ArrayList<>(values.size());
+        for (String value : values) {
+            if (filter == null || value == null || filter.mightContain(value))
+                candidates.add(value);
+            else
+                slot.absent.increment();
+        }
+        if (candidates.isEmpty())
+            return Set.of();
+
+        Set<String> existing = new HashSet<>(query.apply(candidates));
+        if (filter != null) {
+            slot.present.increment(existing.size());
+            slot.falsePositive.increment(candidates.size() - existing.size());
+        }
+        return existing;
+    }
+
+    private void scheduleRebuild(Slot slot) {
+        if (!slot.rebuilding.compareAndSet(false, true))
+            return;
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    rebuild(slot);
+                } finally {
+                    slot.rebuilding.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            slot.rebuilding.set(false);
+            log.warn("Could not schedule the rebuild of the {} filter: {}", slot.field, e.getMessage());
+        }
+    }
+
+    private void rebuild(Slot slot) {
+        long startedAt = System.nanoTime();
+        try {
+            long count = slot.field == Field.LICENSE_PLATE ? carRepository.count() : userRepository.count();
+            BloomFilter next = new BloomFilter(Math.max(minCapacity, count * 2), falsePositiveRate);
+            slot.pending = next;
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> values = values(slot.field)) {
+                    values.filter(Objects::nonNull).forEach(next::put);
+                }
+            });
+            slot.filter = next;
+            slot.rebuildTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            log.info("Rebuilt the {} filter with {} values (capacity {})", slot.field, next.size(), next.capacity());
+        } catch (RuntimeException e) {
+            log.error("Error while rebuilding the {} filter: {}", slot.field, e.getMessage(), e);
+        } finally {
+            slot.pending = null;
+        }
+    }
+
+    private Stream<String> values(Field field) {
+        return switch (field) {
+            case LICENSE_PLATE -> carRepository.streamLicensePlates();
+            case LOGIN -> userRepository.streamLogins();
+            case EMAIL -> userRepository.streamEmails();
+        };
+    }
+
+    private final class Slot {
+        private final Field field;
+        private final Counter absent;
+        private final Counter falsePositive;
+        private final Counter present;
+        private final Timer rebuildTimer;
+        private final AtomicBoolean rebuilding = new AtomicBoolean();
+        private volatile BloomFilter filter;
+        private volatile BloomFilter pending;
+
+        private Slot(Field field) {
+            this.field = field;
+            String tag = field.name().toLowerCase(Locale.ROOT);
+            this.absent = checks(tag, "absent");
+            this.falsePositive = checks(tag, "false_positive");
+            this.present = checks(tag, "present");
+            this.rebuildTimer = Timer.builder("uniqueness.filter.rebuild")
+                    .description("Time to rebuild the filter from the database")
+                    .tag("field", tag).register(meterRegistry);
+            Gauge.builder("uniqueness.filter.false.positive.rate.expected", this,
+                            s -> s.filter == null ? Double.NaN : s.filter.expectedFalsePositiveRate())
+                    .description("False-positive rate estimated from the number of values in the filter")
+                    .tag("field", tag).register(meterRegistry);
+            Gauge.builder("uniqueness.filter.false.positive.rate.observed", this, Slot::observedFalsePositiveRate)
+                    .description("Share of new values the filter reported as possibly existing")
+                    .tag("field", tag).register(meterRegistry);
+            Gauge.builder("uniqueness.filter.size", this, s -> s.filter == null ? 0 : s.filter.size())
+                    .description("Values added to the filter")
+                    .tag("field", tag).register(meterRegistry);
+        }
+
+        private double observedFalsePositiveRate() {
+            double falsePositives = falsePositive.count();
+            double newValues = falsePositives + absent.count();
+            return newValues == 0 ? Double.NaN : falsePositives / newValues;
+        }
+
+        private Counter checks(String tag, String result) {
+            return Counter.builder("uniqueness.filter.checks")
+                    .description("Uniqueness checks by filter answer and database result")
+                    .tag("field", tag).tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
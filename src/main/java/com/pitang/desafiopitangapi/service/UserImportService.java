@@ -0,0 +1,323 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pitang.desafiopitangapi.domain.dto.ImportResultDTO;
+import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.domain.validation.FieldError;
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Service class that imports users and their cars from newline-delimited JSON, one user per line.
+ * <p>
+ * The body is read line by line and processed in chunks: every record is validated with the entity rules,
+ * duplicated logins, emails and license plates are found with one query per field and chunk, passwords
+ * are hashed on the pool of the {@link PasswordHasher}, and the valid records of the chunk are inserted in JDBC
+ * batches and committed together. At most {@code api.import.max-hashes-in-flight} passwords of an import are
+ * submitted at once, half the hashing pool by default, so sign-ins keep room; when the pool refuses a hash the
+ * import waits for one of its own to finish instead of failing or hashing on the request thread. The outcome of each line is written to the output as soon as its chunk is committed,
+ * so neither the body nor the report is held in memory.
+ * </p>
+ */
+@Service
+public class UserImportService {
+
+    private static final long BUSY_PAUSE_MILLIS = 50;
+
+    private final UserRepository userRepository;
+    private final CarRepository carRepository;
+    private final UniquenessFilter uniquenessFilter;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int chunkSize;
+    private final int maxHashesInFlight;
+    private final ObjectReader recordReader;
+    private final ObjectWriter resultWriter;
+
+    public UserImportService(UserRepository userRepository,
+                             CarRepository carRepository,
+                             UniquenessFilter uniquenessFilter,
+                             PasswordHasher passwordHasher,
+                             TransactionTemplate transactionTemplate,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             @Value("${api.import.chunk-size:500}") int chunkSize,
+                             @Value("${api.import.max-hashes-in-flight:0}") int maxHashesInFlight) {
+        this.userRepository = userRepository;
+        this.carRepository = carRepository;
+        this.uniquenessFilter = uniquenessFilter;
+        this.passwordHasher = passwordHasher;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxHashesInFlight = maxHashesInFlight > 0 ? maxHashesInFlight : Math.max(1, passwordHasher.poolSize() / 2);
+        // The application's mapper, so records are read like the registration body and results written like
+        // the JSON responses.
+        this.recordReader = objectMapper.readerFor(UserDTO.class);
+        this.resultWriter = objectMapper.writerFor(ImportResultDTO.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Imports the users of an NDJSON stream and writes one NDJSON result per non-blank line.
+     *
+     * @author Robson Rodrigues
+     * @param input The NDJSON body, one {@link UserDTO} per line.
+     * @param output The stream receiving one {@link ImportResultDTO} per line, in input order.
+     * @throws IOException if the body cannot be read or the report cannot be written.
+     */
+    public void importUsers(InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<ImportRecord> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank())
+                continue;
+            chunk.add(parse(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                processChunk(chunk, output);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty())
+            processChunk(chunk, output);
+    }
+
+    private ImportRecord parse(long line, String json) {
+        ImportRecord record = new ImportRecord(line);
+        UserDTO user;
+        try {
+            user = recordReader.readValue(json);
+        } catch (JsonProcessingException e) {
+            user = null;
+        }
+        // The literal null is valid JSON but not a user.
+        if (user == null) {
+            record.reject("line", "Malformed JSON");
+            return record;
+        }
+        record.user = UserDTO.toEntity(user);
+
+        // Imported records always create new rows, whatever ids the file carries.
+        record.user.setId(null);
+        record.errors = record.user.validateAll();
+        List<Car> cars = record.user.getCars();
+        if (cars != null) {
+            for (int i = 0; i < cars.size(); i++) {
+                Car car = cars.get(i);
+                if (car == null) {
+                    record.reject("cars[" + i + "]", FieldError.MISSING);
+                    continue;
+                }
+                car.setId(null);
+                for (FieldError error : car.validateAll()) {
+                    record.reject("cars[" + i + "]." + error.field(), error.message());
+                }
+            }
+        }
+        return record;
+    }
+
+    private void processChunk(List<ImportRecord> chunk, OutputStream output) throws IOException {
+        rejectDuplicates(chunk);
+        hashPasswords(chunk);
+
+        List<ImportRecord> valid = chunk.stream().filter(ImportRecord::isValid).toList();
+        if (!valid.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> save(valid));
+            } catch (DataIntegrityViolationException e) {
+                // A value was saved by someone else after the checks: find the offending records one by one.
+                entityManager.clear();
+                for (ImportRecord record : valid) {
+                    saveAlone(record);
+                }
+            }
+            for (ImportRecord record : valid) {
+                if (record.isValid())
+                    recordUniqueValues(record.user);
+            }
+        }
+
+        for (ImportRecord record : chunk) {
+            ImportResultDTO result = record.isValid()
+                    ? new ImportResultDTO(record.line, ImportResultDTO.CREATED, record.user.getId(), null)
+                    : new ImportResultDTO(record.line, ImportResultDTO.REJECTED, null, record.errors);
+            resultWriter.writeValue(output, result);
+            output.write('\n');
+        }
+        output.flush();
+    }
+
+    private void rejectDuplicates(List<ImportRecord> chunk) {
+        Set<String> logins = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        Set<String> licensePlates = new HashSet<>();
+        for (ImportRecord record : chunk) {
+            if (!record.isValid())
+                continue;
+            if (!logins.add(record.user.getLogin()))
+                record.reject("login", "Login already exists");
+            if (!emails.add(record.user.getEmail()))
+                record.reject("email", "Email already exists");
+            for (Car car : cars(record.user)) {
+                if (!licensePlates.add(car.getLicensePlate()))
+                    record.reject("licensePlate", "License plate already exists");
+            }
+        }
+
+        Set<String> existingLogins = uniquenessFilter.existingLogins(logins);
+        Set<String> existingEmails = uniquenessFilter.existingEmails(emails);
+        Set<String> existingLicensePlates = uniquenessFilter.existingLicensePlates(licensePlates);
+        for (ImportRecord record : chunk) {
+            if (!record.isValid())
+                continue;
+            if (existingLogins.contains(record.user.getLogin()))
+                record.reject("login", "Login already exists");
+            if (existingEmails.contains(record.user.getEmail()))
+                record.reject("email", "Email already exists");
+            for (Car car : cars(record.user)) {
+                if (existingLicensePlates.contains(car.getLicensePlate()))
+                    record.reject("licensePlate", "License plate already exists");
+            }
+        }
+    }
+
+    private void hashPasswords(List<ImportRecord> chunk) throws IOException {
+        List<CompletableFuture<String>> hashes = new ArrayList<>(chunk.size());
+        Deque<CompletableFuture<String>> inFlight = new ArrayDeque<>(maxHashesInFlight);
+        try {
+            for (ImportRecord record : chunk) {
+                String password = record.isValid() ? record.user.getPassword() : null;
+                if (password == null) {
+                    hashes.add(null);
+                    continue;
+                }
+                while (inFlight.size() >= maxHashesInFlight) {
+                    inFlight.removeFirst().get();
+                }
+                CompletableFuture<String> hash = encode(password, inFlight);
+                inFlight.addLast(hash);
+                hashes.add(hash);
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                if (hashes.get(i) != null)
+                    chunk.get(i).user.setPassword(hashes.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            hashes.forEach(hash -> {
+                if (hash != null)
+                    hash.cancel(true);
+            });
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error while hashing passwords", e.getCause());
+        }
+    }
+
+    private CompletableFuture<String> encode(String password, Deque<CompletableFuture<String>> inFlight)
+            throws InterruptedException, ExecutionException {
+        while (true) {
+            try {
+                return passwordHasher.encode(password);
+            } catch (BusinessException e) {
+                // The pool is full with other requests: wait for a hash of this import, or a moment, and retry.
+                if (!inFlight.isEmpty())
+                    inFlight.removeFirst().get();
+                else
+                    Thread.sleep(BUSY_PAUSE_MILLIS);
+            }
+        }
+    }
+
+    private void save(List<ImportRecord> records) {
+        List<User> users = new ArrayList<>(records.size());
+        List<Car> cars = new ArrayList<>();
+        for (ImportRecord record : records) {
+            users.add(record.user);
+            for (Car car : cars(record.user)) {
+                car.validate();
+                car.setUser(record.user);
+                cars.add(car);
+            }
+        }
+        userRepository.saveAll(users);
+        carRepository.saveAll(cars);
+        userRepository.flush();
+        entityManager.clear();
+    }
+
+    private void saveAlone(ImportRecord record) {
+        // The ids and versions set by the rolled back batch were never stored, so the record is inserted again as new.
+        record.user.setId(null);
+        record.user.setVersion(null);
+        cars(record.user).forEach(car -> car.setId(null));
+        try {
+            transactionTemplate.executeWithoutResult(status -> save(List.of(record)));
+        } catch (DataIntegrityViolationException e) {
+            entityManager.clear();
+            record.reject("record", uniquenessFilter.translate(e).getMessage());
+        }
+    }
+
+    private void recordUniqueValues(User user) {
+        uniquenessFilter.record(UniquenessFilter.Field.LOGIN, user.getLogin());
+        uniquenessFilter.record(UniquenessFilter.Field.EMAIL, user.getEmail());
+        for (Car car : cars(user)) {
+            uniquenessFilter.record(UniquenessFilter.Field.LICENSE_PLATE, car.getLicensePlate());
+        }
+    }
+
+    private static List<Car> cars(User user) {
+        return user.getCars() == null ? List.of() : user.getCars();
+    }
+
+    private static final class ImportRecord {
+        private final long line;
+        private User user;
+        private List<FieldError> errors = List.of();
+
+        private ImportRecord(long line) {
+            this.line = line;
+        }
+
+        private boolean isValid() {
+            return errors.isEmpty();
+        }
+
+        private void reject(String field, String message) {
+            errors = FieldError.append(errors, field, message);
+        }
+    }
+}
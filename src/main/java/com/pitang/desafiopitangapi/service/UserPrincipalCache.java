@@ -0,0 +1,129 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import com.pitang.desafiopitangapi.config.UserPrincipal;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import com.pitang.desafiopitangapi.exceptions.InvalidTokenException;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the principals of the users resolved from the login of a validated token.
+ * <p>
+ * Only the immutable {@link UserPrincipal} and the version of the {@link User} are kept, never the entity,
+ * so the cached values can be shared between threads and hold no password hash.
+ * Concurrent misses for the same login share a single load through a {@link SingleFlight}, so a burst of
+ * requests with the same token results in one query; callers that wait longer than
+ * {@code api.single-flight.timeout} for it get {@code SERVICE_UNAVAILABLE}. A load that overlaps an
+ * invalidation does not keep its result in the cache, and is not shared with callers arriving after it. Entries are invalidated by {@link UserService}
+ * whenever a user is updated or deleted, and by the {@link InvalidationBus} when another node does it.
+ * </p>
+ */
+@Component
+public class UserPrincipalCache implements MeterBinder {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Entry> cache;
+    private final SingleFlight<String, Entry> loads;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserPrincipalCache(UserRepository userRepository,
+                              @Value("${api.security.principal.cache.max-size:10000}") long maxSize,
+                              @Value("${api.security.principal.cache.ttl:PT10M}") Duration ttl,
+                              @Value("${api.single-flight.timeout:PT5S}") Duration loadTimeout) {
+        this.userRepository = userRepository;
+        this.loads = new SingleFlight<>("user.principals", loadTimeout);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Publishes the hit, miss and eviction statistics of the cache as {@code cache.*} meters.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "user.principals");
+        loads.bindTo(registry);
+    }
+
+    /**
+     * Retrieves the principal of the user with the given login, loading the user from the database on a miss.
+     *
+     * @author Robson Rodrigues
+     * @param login The login of the user to be retrieved.
+     * @return The principal of the user.
+     * @throws InvalidTokenException if the user with the specified login is not found.
+     * @throws BusinessException with status {@code SERVICE_UNAVAILABLE} if the shared load does not end in time.
+     */
+    public UserPrincipal get(String login) {
+        Entry entry = cache.getIfPresent(login);
+        if (entry == null)
+            entry = loads.load(login, this::load);
+        if (entry == null)
+            throw new InvalidTokenException("Invalid login");
+        return entry.principal();
+    }
+
+    /**
+     * Removes the cached user with the given login, if any.
+     *
+     * @author Robson Rodrigues
+     * @param login The login of the user to be evicted.
+     */
+    public void invalidate(String login) {
+        if (login != null) {
+            invalidations.incrementAndGet();
+            loads.forget(login);
+            cache.invalidate(login);
+        }
+    }
+
+    /**
+     * Removes the cached user with the given ID, whatever its login, unless it is already at the given version.
+     * Scans the cache, so it is meant for changes made by other nodes, which only know the ID. The login of a
+     * load in flight is not known, so every load in flight is detached.
+     *
+     * @author Robson Rodrigues
+     * @param id The ID of the user that changed.
+     * @param version The version of the user after the change, or null to evict any cached version.
+     */
+    public void invalidateById(String id, Long version) {
+        if (id != null) {
+            invalidations.incrementAndGet();
+            loads.forgetAll();
+            cache.asMap().values().removeIf(entry -> id.equals(entry.principal().id())
+                    && (version == null || entry.version() == null || entry.version() < version));
+        }
+    }
+
+    private Entry load(String login) {
+        long before = invalidations.get();
+        User user = userRepository.findByLogin(login).orElse(null);
+        if (user == null)
+            return null;
+        Entry entry = new Entry(new UserPrincipal(user.getId(), user.getLogin()), user.getVersion());
+        cache.put(login, entry);
+        // An invalidation during the query may have missed the entry; drop it rather than keep stale data.
+        if (invalidations.get() != before)
+            cache.invalidate(login);
+        return entry;
+    }
+
+    /**
+     * A cached principal with the version of the user it was read from.
+     */
+    private record Entry(UserPrincipal principal, Long version) {
+    }
+}
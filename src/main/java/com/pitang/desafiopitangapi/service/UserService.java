@@ -1,25 +1,43 @@
 package com.pitang.desafiopitangapi.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.pitang.desafiopitangapi.config.TokenService;
+import com.pitang.desafiopitangapi.config.UserPrincipal;
+import com.pitang.desafiopitangapi.domain.dto.CursorPageDTO;
 import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.dto.UserVersionDTO;
+import com.pitang.desafiopitangapi.domain.dto.VersionedDTO;
 import com.pitang.desafiopitangapi.exceptions.BusinessException;
 import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.ChangeLog;
 import com.pitang.desafiopitangapi.domain.model.User;
 import com.pitang.desafiopitangapi.exceptions.InvalidTokenException;
 import com.pitang.desafiopitangapi.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class for handling user-related operations such as registration, update, retrieval, and deletion.
@@ -29,10 +47,22 @@ import java.util.stream.Collectors;
 @Service
 public class UserService {
 
+    /**
+     * Maximum number of users returned in a single page.
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final UserRepository userRepository;
     private final CarService carService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
     private final TokenService tokenService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final UniquenessFilter uniquenessFilter;
+    private final EntityManager entityManager;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final InvalidationBus invalidationBus;
+    private final ObjectMapper objectMapper;
     //private final UserAuthenticationProvider userAuthenticationProvider;
 
 
@@ -40,18 +70,21 @@ public class UserService {
 
     /**
      * Registers a new user. Validates the user details, checks for duplicate login and email,
-     * encrypts the password, and saves the user to the repository. Also registers any cars associated with the user.
+     * encrypts the password, and saves the user to the repository. Also registers any cars associated with the user,
+     * checking their license plates with a single query and inserting them in batches, in the same transaction.
+     * The password is hashed on the {@link PasswordHasher} pool, which then saves the user, so the calling
+     * thread is released as soon as the checks pass.
      *
      * @param userDTO The user data transfer object containing the user's details.
-     * @return The registered user data transfer object.
-     * @throws BusinessException if the login or email already exists or if the validation fails.
+     * @return A future of the registered user data transfer object.
+     * @throws BusinessException if the login or email already exists, if the validation fails,
+     * or with status {@code SERVICE_UNAVAILABLE} if too many passwords are being hashed.
      */
-    @Transactional
-    public UserDTO register(UserDTO userDTO) throws BusinessException {
-        if (userRepository.existsByLogin(userDTO.getLogin())) {
+    public CompletableFuture<UserDTO> register(UserDTO userDTO) throws BusinessException {
+        if (uniquenessFilter.loginExists(userDTO.getLogin())) {
             throw new BusinessException("Login already exists", HttpStatus.BAD_REQUEST);
         }
-        if (userRepository.existsByEmail(userDTO.getEmail())) {
+        if (uniquenessFilter.emailExists(userDTO.getEmail())) {
             throw new BusinessException("Email already exists", HttpStatus.BAD_REQUEST);
         }
         User newUser = UserDTO.toEntity(userDTO);
@@ -60,40 +93,128 @@ public class UserService {
         if (newUser.getCars() != null)
             carService.validateCarList(newUser.getCars());
 
-        newUser.setPassword(passwordEncoder.encode(newUser.getPassword()));
+        return passwordHasher.encode(newUser.getPassword()).thenApply(hash -> {
+            newUser.setPassword(hash);
+            transactionTemplate.executeWithoutResult(status -> save(newUser));
+            uniquenessFilter.record(UniquenessFilter.Field.LOGIN, newUser.getLogin());
+            uniquenessFilter.record(UniquenessFilter.Field.EMAIL, newUser.getEmail());
+            return userDTO;
+        });
+    }
+
+    private void save(User newUser) {
         //this.userRepository.save(newUser);
         try {
             User saveUser = userRepository.save(newUser);
-            if (newUser.getCars() != null) {
-                for (Car car : newUser.getCars()) {
-                    car.setUser(saveUser);
-                    carService.register(car, null);
-                }
-            }
+            if (newUser.getCars() != null && !newUser.getCars().isEmpty())
+                carService.registerAll(newUser.getCars(), saveUser);
+            userRepository.flush();
+        }catch (DataIntegrityViolationException e){
+            throw uniquenessFilter.translate(e);
         }catch (Exception e){
             throw new BusinessException("error in registration", HttpStatus.BAD_REQUEST);
         }
-        return userDTO;
     }
 
     /**
-     * Updates the last login timestamp for a user.
+     * Replaces the stored password hash of a user with one of the current strength,
+     * unless the password was changed since the old hash was read.
+     *
+     * @param user The user, as read when the password was checked.
+     * @param newPassword The new hash of the same password.
+     */
+    @Transactional
+    public void rehashPassword(User user, String newPassword) {
+        if (userRepository.updatePassword(user.getId(), user.getPassword(), newPassword) > 0) {
+            userPrincipalCache.invalidate(user.getLogin());
+            invalidationBus.publish(ChangeLog.Type.USER, user.getId(), null);
+        }
+    }
+
+    /**
+     * Records the login of a user. The date is buffered by the {@link LastLoginRecorder} and written
+     * in the background, so the caller never waits for the database.
      *
      * @param user The user whose last login timestamp will be updated.
      */
     public void updateLastLogin(User user) {
-        user.setLastLogin(LocalDate.now());
-        userRepository.save(user);
+        lastLoginRecorder.record(user.getId());
     }
 
     /**
-     * Retrieves all users and returns them as a list of {@link UserDTO}.
+     * Retrieves all users, with their cars loaded in the same query, and returns them as a list of {@link UserDTO}.
      *
      * @return A list of all users as data transfer objects.
      */
     public List<UserDTO> findAll() {
 
-        return userRepository.findAll().stream().map(obj -> User.toDTO(obj)).collect(Collectors.toList());
+        return userRepository.findAllWithCars().stream().map(obj -> User.toDTO(obj)).collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieves a page of users ordered by ID, starting after the given cursor (keyset pagination).
+     *
+     * @param limit The maximum number of users in the page.
+     * @param after The cursor returned with the previous page, or null for the first page.
+     * @return The page of users and the cursor of the next page, which is null on the last page.
+     * @throws BusinessException if the limit is out of range or the cursor is invalid.
+     */
+    public CursorPageDTO<UserDTO> findPage(int limit, String after) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw new BusinessException("Invalid limit", HttpStatus.BAD_REQUEST);
+
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<String> ids = after == null || after.isEmpty()
+                ? userRepository.findFirstPageIds(page)
+                : userRepository.findPageIdsAfter(decodeCursor(after), page);
+
+        String nextCursor = null;
+        if (ids.size() > limit) {
+            ids = ids.subList(0, limit);
+            nextCursor = encodeCursor(ids.get(limit - 1));
+        }
+        if (ids.isEmpty())
+            return new CursorPageDTO<>(List.of(), null);
+        List<UserDTO> users = userRepository.findWithCarsByIdIn(ids).stream().map(obj -> User.toDTO(obj)).collect(Collectors.toList());
+        return new CursorPageDTO<>(users, nextCursor);
+    }
+
+    /**
+     * Writes every user as newline-delimited JSON, reading them from a forward-only cursor and
+     * detaching each one after it is written, so memory use does not grow with the table size.
+     * Rows carry the user fields only; cars are not loaded.
+     *
+     * @param out The stream the users are written to.
+     * @throws IOException if writing to the stream fails.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(OutputStream out) throws IOException {
+        // The application's mapper, so the lines are formatted like the JSON responses.
+        ObjectWriter writer = objectMapper.writerFor(UserDTO.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (Stream<User> users = userRepository.streamAll()) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                UserDTO userDTO = User.toDTO(user);
+                userDTO.setCars(null);
+                writer.writeValue(out, userDTO);
+                out.write('\n');
+                entityManager.detach(user);
+            }
+        }
+        out.flush();
+    }
+
+    private static String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
     }
 
     /**
@@ -104,8 +225,29 @@ public class UserService {
      * @throws BadCredentialsException if the user with the specified ID is not found.
      */
     public UserDTO findById(String id) {
-        User user = userRepository.findById(id).orElseThrow(() -> new InvalidTokenException("Invalid Id"));
-        return User.toDTO(user);
+        return findVersionedById(id).body();
+    }
+
+    /**
+     * Finds a user by their ID and returns their data with the ETag of its current version.
+     *
+     * @param id The ID of the user to be retrieved.
+     * @return The user data transfer object and its quoted ETag.
+     * @throws InvalidTokenException if the user with the specified ID is not found.
+     */
+    public VersionedDTO<UserDTO> findVersionedById(String id) {
+        User user = userRepository.findWithCarsById(id).orElseThrow(() -> new InvalidTokenException("Invalid Id"));
+        return new VersionedDTO<>(User.toDTO(user), UserVersionDTO.of(user).eTag());
+    }
+
+    /**
+     * Reads the ETag of a user with a single query on the user row, without loading the user or their cars.
+     *
+     * @param id The ID of the user.
+     * @return The quoted ETag, or {@code null} if the user is not found.
+     */
+    public String findETag(String id) {
+        return userRepository.findVersionById(id).map(UserVersionDTO::eTag).orElse(null);
     }
 
     /**
@@ -115,23 +257,47 @@ public class UserService {
      * @return The user data transfer object of the logged-in user.
      */
     public UserDTO findByMe(HttpServletRequest request) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User user = userRepository.findByLogin(((UserDTO) auth.getPrincipal()).getLogin())
+        return findVersionedByMe(request).body();
+    }
+
+    /**
+     * Retrieves the currently logged-in user with the ETag of its current version.
+     *
+     * @param request The HTTP request containing the authentication token.
+     * @return The user data transfer object of the logged-in user and its quoted ETag.
+     */
+    public VersionedDTO<UserDTO> findVersionedByMe(HttpServletRequest request) {
+        User user = userRepository.findWithCarsById(getPrincipalId())
                 .orElseThrow(() -> new InvalidTokenException("Invalid login"));
         UserDTO userDTO = User.toDTO(user);
         userDTO.setCars(user.getCars());
-        return userDTO;
+        return new VersionedDTO<>(userDTO, UserVersionDTO.of(user).eTag());
+    }
+
+    /**
+     * Reads the ETag of the currently logged-in user with a single query, without loading the user.
+     *
+     * @param request The HTTP request containing the authentication token.
+     * @return The quoted ETag, or {@code null} if the user no longer exists.
+     */
+    public String findMyETag(HttpServletRequest request) {
+        return findETag(getPrincipalId());
+    }
+
+    private static String getPrincipalId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return ((UserPrincipal) auth.getPrincipal()).id();
     }
 
     /**
-     * Finds a user by their login.
+     * Finds the principal of a user by their login, served from the {@link UserPrincipalCache}.
      *
      * @param login The login of the user to be retrieved.
-     * @return The user entity.
+     * @return The principal of the user.
      * @throws InvalidTokenException if the user with the specified login is not found.
      */
-    public User findByLogin(String login) {
-        return userRepository.findByLogin(login).orElseThrow(() -> new InvalidTokenException("Invalid login"));
+    public UserPrincipal findByLogin(String login) {
+        return userPrincipalCache.get(login);
     }
 
     /**
@@ -141,6 +307,7 @@ public class UserService {
      * @param userDTO The data transfer object containing the updated user details.
      * @return The updated user data transfer object.
      * @throws InvalidTokenException if the user with the specified ID is not found.
+     * @throws BusinessException with status {@code CONFLICT} if the user was changed after it was read.
      */
     public UserDTO update(String id, UserDTO userDTO) {
         User user = userRepository.findById(id).orElseThrow(() -> new InvalidTokenException("Invalid Id"));
@@ -153,9 +320,22 @@ public class UserService {
             newUser.setCars(user.getCars());
         newUser.setCreatedAt(user.getCreatedAt());
         newUser.setLastLogin(user.getLastLogin());
+        newUser.setVersion(user.getVersion());
 
         newUser.validate();
-        userRepository.save(newUser);
+        User savedUser;
+        try {
+            savedUser = userRepository.save(newUser);
+        } catch (DataIntegrityViolationException e) {
+            throw uniquenessFilter.translate(e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new BusinessException("User was modified, try again", HttpStatus.CONFLICT);
+        }
+        uniquenessFilter.record(UniquenessFilter.Field.LOGIN, newUser.getLogin());
+        uniquenessFilter.record(UniquenessFilter.Field.EMAIL, newUser.getEmail());
+        userPrincipalCache.invalidate(user.getLogin());
+        userPrincipalCache.invalidate(newUser.getLogin());
+        invalidationBus.publish(ChangeLog.Type.USER, id, savedUser.getVersion());
         return User.toDTO(user);
     }
 
@@ -173,5 +353,7 @@ public class UserService {
             }
         }
         userRepository.delete(user);
+        userPrincipalCache.invalidate(user.getLogin());
+        invalidationBus.publish(ChangeLog.Type.USER, id, null);
     }
 }
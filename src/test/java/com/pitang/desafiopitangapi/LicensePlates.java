@@ -0,0 +1,24 @@
+package com.pitang.desafiopitangapi;
+
+/**
+ * Generates the license plates of the cars inserted by tests and benchmarks.
+ */
+public final class LicensePlates {
+
+    private LicensePlates() {
+    }
+
+    /**
+     * Builds a unique license plate in the legacy {@code AAA-9999} format for the given index.
+     *
+     * @param index a non-negative index lower than 175,760,000
+     * @return the license plate
+     */
+    public static String plate(long index) {
+        long letters = index / 10_000;
+        char first = (char) ('A' + letters / (26 * 26) % 26);
+        char second = (char) ('A' + letters / 26 % 26);
+        char third = (char) ('A' + letters % 26);
+        return String.format("%c%c%c-%04d", first, second, third, index % 10_000);
+    }
+}
@@ -0,0 +1,52 @@
+package com.pitang.desafiopitangapi;
+
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Builds valid, unsaved entities for the tests that insert users and cars.
+ */
+public final class TestEntities {
+
+    private TestEntities() {
+    }
+
+    /**
+     * Builds a valid user whose email is derived from the login.
+     *
+     * @param login the login of the user, unique among the saved users
+     * @return the user, with the raw password {@code password123} and no cars
+     */
+    public static User user(String login) {
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setEmail(login + "@test.com");
+        user.setBirthday(new Date());
+        user.setLogin(login);
+        user.setPassword("password123");
+        user.setPhone("81900000000");
+        user.setCreatedAt(LocalDate.now());
+        return user;
+    }
+
+    /**
+     * Builds a valid car owned by the given user.
+     *
+     * @param owner the owner of the car
+     * @param licensePlate the license plate, unique among the saved cars
+     * @return the car, not in use
+     */
+    public static Car car(User owner, String licensePlate) {
+        Car car = new Car();
+        car.setYear(2020);
+        car.setLicensePlate(licensePlate);
+        car.setModel("Model");
+        car.setColor("Black");
+        car.setUser(owner);
+        return car;
+    }
+}
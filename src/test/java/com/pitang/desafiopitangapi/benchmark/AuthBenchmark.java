@@ -0,0 +1,130 @@
+package com.pitang.desafiopitangapi.benchmark;
+
+import com.pitang.desafiopitangapi.config.JwtAuthFilter;
+import com.pitang.desafiopitangapi.config.TokenCrypto;
+import com.pitang.desafiopitangapi.config.UserAuthenticationProvider;
+import com.pitang.desafiopitangapi.config.UserPrincipal;
+import com.pitang.desafiopitangapi.config.VerifiedTokenCache;
+import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures token issuing and validation in {@link UserAuthenticationProvider}, with and without the
+ * verified token cache, and the cost {@link JwtAuthFilter} adds to every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthBenchmark {
+
+    private static final String SECRET = "secret-key-pitang";
+
+    private UserAuthenticationProvider provider;
+    private UserAuthenticationProvider uncachedProvider;
+    private UserDTO user;
+    private String token;
+    private JwtAuthFilter filter;
+    private MockHttpServletRequest authenticatedRequest;
+    private MockHttpServletRequest anonymousRequest;
+    private MockHttpServletRequest invalidTokenRequest;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        TokenCrypto tokenCrypto = new TokenCrypto(SECRET);
+        provider = provider(tokenCrypto, new VerifiedTokenCache(10_000));
+        uncachedProvider = provider(tokenCrypto, new VerifiedTokenCache(1) {
+            @Override
+            public UserPrincipal get(String token) {
+                return null;
+            }
+
+            @Override
+            public void put(String token, UserPrincipal principal, Instant expiresAt) {
+            }
+        });
+
+        user = new UserDTO();
+        user.setId("123e4567-e89b-12d3-a456-426614174000");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setLogin("test");
+        token = provider.createToken(user);
+
+        filter = new JwtAuthFilter(provider, new SimpleMeterRegistry(), request -> false);
+        authenticatedRequest = request("Bearer " + token);
+        anonymousRequest = request(null);
+        invalidTokenRequest = request("Bearer " + token.substring(0, token.length() - 2) + "xx");
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public String createToken() {
+        return provider.createToken(user);
+    }
+
+    @Benchmark
+    public Authentication validateTokenCached() {
+        return provider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication validateTokenUncached() {
+        return uncachedProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Object filterAuthenticated() throws Exception {
+        filter.doFilter(authenticatedRequest, response, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object filterAnonymous() throws Exception {
+        filter.doFilter(anonymousRequest, response, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object filterInvalidToken() throws Exception {
+        filter.doFilter(invalidTokenRequest, response, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static UserAuthenticationProvider provider(TokenCrypto tokenCrypto, VerifiedTokenCache cache) {
+        UserAuthenticationProvider provider = new UserAuthenticationProvider();
+        ReflectionTestUtils.setField(provider, "expiration", "3600000");
+        ReflectionTestUtils.setField(provider, "tokenCrypto", tokenCrypto);
+        ReflectionTestUtils.setField(provider, "verifiedTokenCache", cache);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+        return provider;
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cars");
+        if (authorization != null)
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        return request;
+    }
+}
@@ -0,0 +1,33 @@
+package com.pitang.desafiopitangapi.benchmark;
+
+import com.pitang.desafiopitangapi.DesafioPitangApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application on a random port for benchmarks that exercise services and repositories.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Starts the application against a dedicated in-memory H2 database.
+     *
+     * @param database the name of the in-memory database
+     * @param properties additional properties in {@code key=value} form
+     * @return the started application context
+     */
+    static ConfigurableApplicationContext start(String database, String... properties) {
+        return new SpringApplicationBuilder(DesafioPitangApiApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                // application.properties wins over default properties, so the port is passed as an argument.
+                .run("--management.server.port=0");
+    }
+}
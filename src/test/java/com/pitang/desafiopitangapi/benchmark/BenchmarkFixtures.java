@@ -0,0 +1,67 @@
+package com.pitang.desafiopitangapi.benchmark;
+
+import com.pitang.desafiopitangapi.LicensePlates;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builds valid, detached entities for benchmarks that do not need a database.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Builds a valid user owning the given number of valid cars.
+     *
+     * @param cars the number of cars of the user
+     * @return the user, with its cars set on both sides of the association
+     */
+    static User user(int cars) {
+        User user = new User();
+        user.setId(UUID.randomUUID().toString());
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setEmail("test.user@pitang.com");
+        user.setBirthday(new Date());
+        user.setLogin("test.user");
+        user.setPassword("password123");
+        user.setPhone("(81) 99999-0000");
+        user.setCreatedAt(LocalDate.now());
+        user.setLastLogin(LocalDate.now());
+
+        List<Car> fleet = new ArrayList<>(cars);
+        for (int i = 0; i < cars; i++) {
+            Car car = car(LicensePlates.plate(i));
+            car.setUser(user);
+            fleet.add(car);
+        }
+        user.setCars(fleet);
+        return user;
+    }
+
+    /**
+     * Builds a valid car with the given license plate.
+     *
+     * @param licensePlate the license plate of the car
+     * @return the car, without an owner
+     */
+    static Car car(String licensePlate) {
+        Car car = new Car();
+        car.setId(UUID.randomUUID().toString());
+        car.setYear(2020);
+        car.setLicensePlate(licensePlate);
+        car.setModel("Audi");
+        car.setColor("White");
+        car.setUsage(false);
+        car.setUsageCount(0);
+        return car;
+    }
+}
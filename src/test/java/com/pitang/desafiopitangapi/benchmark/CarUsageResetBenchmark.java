@@ -0,0 +1,90 @@
+package com.pitang.desafiopitangapi.benchmark;
+
+import com.pitang.desafiopitangapi.LicensePlates;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.service.CarService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resets the usage flag of a million seeded cars with the bulk UPDATE, the chunked mode and
+ * the previous load-flip-saveAll approach.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CarUsageResetBenchmark {
+
+    private static final int CARS = 1_000_000;
+    private static final int INSERT_BATCH = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private CarRepository carRepository;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void startAndSeed() {
+        context = BenchmarkContext.start("car-usage-reset");
+        carService = context.getBean(CarService.class);
+        carRepository = context.getBean(CarRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < CARS; i++) {
+            batch.add(new Object[]{"car-" + i, 2020, LicensePlates.plate(i), "Model", "Black"});
+            if (batch.size() == INSERT_BATCH) {
+                insert(batch);
+                batch.clear();
+            }
+        }
+        insert(batch);
+    }
+
+    @Setup(Level.Iteration)
+    public void markAllInUse() {
+        jdbcTemplate.update("UPDATE CAR SET USAGE = TRUE");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int bulkUpdate() {
+        return carService.resetCarUsage();
+    }
+
+    @Benchmark
+    public int chunkedUpdate() {
+        return carService.resetCarUsage(50_000);
+    }
+
+    @Benchmark
+    public Integer loadAndSaveAll() {
+        return transactionTemplate.execute(status -> {
+            List<Car> carsInUse = carRepository.findByUsageTrue();
+            carsInUse.forEach(car -> car.setUsage(false));
+            carRepository.saveAll(carsInUse);
+            return carsInUse.size();
+        });
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO CAR (CAR_ID, CAR_YEAR, LICENSE_PLATE, MODEL, COLOR, USAGE, USAGE_COUNT) "
+                + "VALUES (?, ?, ?, ?, ?, TRUE, 0)", batch);
+    }
+}
@@ -0,0 +1,149 @@
+package com.pitang.desafiopitangapi.benchmark;
+
+import com.pitang.desafiopitangapi.domain.dto.CarDTO;
+import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.mapper.CarMapper;
+import com.pitang.desafiopitangapi.domain.mapper.UserMapper;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.domain.validation.FieldError;
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the field validation of {@link User} and {@link Car}, including the rejection path, against the
+ * previous {@code String.matches} implementation, and compares the hand-written {@code toDTO} conversions
+ * with the MapStruct {@link UserMapper} and {@link CarMapper}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DomainBenchmark {
+
+    private User user;
+    private Car legacyPlateCar;
+    private Car mercosulPlateCar;
+    private Car invalidPlateCar;
+    private User invalidUser;
+    private UserMapper userMapper;
+    private CarMapper carMapper;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkFixtures.user(3);
+        legacyPlateCar = BenchmarkFixtures.car("ABC-1234");
+        mercosulPlateCar = BenchmarkFixtures.car("ABC1D23");
+        invalidPlateCar = BenchmarkFixtures.car("ABC-12");
+        invalidUser = BenchmarkFixtures.user(0);
+        invalidUser.setFirstName("");
+        invalidUser.setEmail("invalid-email");
+        invalidUser.setPhone("123");
+        userMapper = Mappers.getMapper(UserMapper.class);
+        carMapper = Mappers.getMapper(CarMapper.class);
+    }
+
+    @Benchmark
+    public User validateUser() {
+        user.validate();
+        return user;
+    }
+
+    @Benchmark
+    public Car validateLegacyPlateCar() {
+        legacyPlateCar.validate();
+        return legacyPlateCar;
+    }
+
+    @Benchmark
+    public Car validateMercosulPlateCar() {
+        mercosulPlateCar.validate();
+        return mercosulPlateCar;
+    }
+
+    @Benchmark
+    public Object validateInvalidPlateCar() {
+        try {
+            invalidPlateCar.validate();
+            return invalidPlateCar;
+        } catch (BusinessException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public List<FieldError> validateAllInvalidUser() {
+        return invalidUser.validateAll();
+    }
+
+    @Benchmark
+    public User legacyValidateUser() {
+        legacyValidate(user);
+        return user;
+    }
+
+    @Benchmark
+    public Car legacyValidateMercosulPlateCar() {
+        legacyValidate(mercosulPlateCar);
+        return mercosulPlateCar;
+    }
+
+    @Benchmark
+    public Object legacyValidateInvalidPlateCar() {
+        try {
+            legacyValidate(invalidPlateCar);
+            return invalidPlateCar;
+        } catch (BusinessException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public UserDTO userToDTO() {
+        return User.toDTO(user);
+    }
+
+    @Benchmark
+    public UserDTO userMapperToDTO() {
+        return userMapper.toUserDTO(user);
+    }
+
+    @Benchmark
+    public CarDTO carToDTO() {
+        return Car.toDTO(legacyPlateCar);
+    }
+
+    @Benchmark
+    public CarDTO carMapperToDTO() {
+        return carMapper.toCarDTO(legacyPlateCar);
+    }
+
+    /**
+     * Format checks of {@code User.validate} before the precompiled validation, kept as the baseline.
+     */
+    private static void legacyValidate(User user) {
+        if (!user.getEmail().matches("^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$"))
+            throw new BusinessException("Invalid fields", HttpStatus.BAD_REQUEST);
+        if (!user.getPhone().matches("^(\\+\\d{1,2}\\s?)?\\(?\\d{2,3}\\)?\\s?-?\\d{4,5}-?\\d{4}$|^\\d{8,9}$"))
+            throw new BusinessException("Invalid fields", HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Format checks of {@code Car.validate} before the precompiled validation, kept as the baseline.
+     */
+    private static void legacyValidate(Car car) {
+        if (car.getYear() > LocalDateTime.now().getYear())
+            throw new BusinessException("Invalid fields", HttpStatus.BAD_REQUEST);
+        if (!car.getLicensePlate().matches("(?i)^[A-Z]{3}-\\d{4}$") &&
+                !car.getLicensePlate().matches("(?i)^[A-Z]{3}\\d[A-Z]\\d{2}$"))
+            throw new BusinessException("Invalid fields", HttpStatus.BAD_REQUEST);
+    }
+}
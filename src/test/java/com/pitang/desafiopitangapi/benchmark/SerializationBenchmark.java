@@ -0,0 +1,39 @@
+package com.pitang.desafiopitangapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JSON serialization of a {@link UserDTO} with its cars, using an object mapper configured
+ * as the one of the MVC message converter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"0", "3", "20"})
+    private int cars;
+
+    private ObjectWriter writer;
+    private UserDTO user;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(UserDTO.class);
+        user = User.toDTO(BenchmarkFixtures.user(cars));
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws Exception {
+        return writer.writeValueAsBytes(user);
+    }
+}
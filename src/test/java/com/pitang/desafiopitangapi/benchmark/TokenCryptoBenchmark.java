@@ -0,0 +1,60 @@
+package com.pitang.desafiopitangapi.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.pitang.desafiopitangapi.config.TokenCrypto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building the HMAC {@link Algorithm} and the verifier on every call (previous behaviour of
+ * {@code UserAuthenticationProvider} and {@code TokenService}) with the instances shared by {@link TokenCrypto}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenCryptoBenchmark {
+
+    private static final String SECRET = "secret-key-pitang";
+
+    private String encodedSecret;
+    private TokenCrypto tokenCrypto;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        encodedSecret = Base64.getEncoder().encodeToString(SECRET.getBytes());
+        tokenCrypto = new TokenCrypto(SECRET);
+        token = JWT.create().withSubject("test").withClaim("id", "123e4567-e89b-12d3-a456-426614174000")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 3600000)).sign(tokenCrypto.algorithm());
+    }
+
+    @Benchmark
+    public DecodedJWT verifyPerCall() {
+        Algorithm algorithm = Algorithm.HMAC256(encodedSecret);
+        return JWT.require(algorithm).build().verify(token);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyShared() {
+        return tokenCrypto.verify(token);
+    }
+
+    @Benchmark
+    public String signPerCall() {
+        Algorithm algorithm = Algorithm.HMAC256(encodedSecret);
+        return JWT.create().withSubject("test").sign(algorithm);
+    }
+
+    @Benchmark
+    public String signShared() {
+        return JWT.create().withSubject("test").sign(tokenCrypto.algorithm());
+    }
+}
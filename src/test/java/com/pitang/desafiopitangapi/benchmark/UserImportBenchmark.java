@@ -0,0 +1,112 @@
+package com.pitang.desafiopitangapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pitang.desafiopitangapi.LicensePlates;
+import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.service.UserImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports a generated NDJSON file of 100,000 users with two cars each through {@link UserImportService},
+ * reporting the elapsed time and, as the {@code peakHeapMb} secondary result, the peak heap use.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g", "-XX:+UseG1GC"})
+@State(Scope.Benchmark)
+public class UserImportBenchmark {
+
+    private static final int CARS_PER_USER = 2;
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"500"})
+    private int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private UserImportService userImportService;
+    private Path file;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public double peakHeapMb;
+    }
+
+    @Setup(Level.Trial)
+    public void startAndGenerate() throws IOException {
+        context = BenchmarkContext.start("user-import", "api.import.chunk-size=" + chunkSize);
+        userImportService = context.getBean(UserImportService.class);
+
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        file = Files.createTempFile("users-", ".ndjson");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < users; i++) {
+                User user = BenchmarkFixtures.user(0);
+                user.setId(null);
+                user.setLogin("import-" + i);
+                user.setEmail("import" + i + "@pitang.com");
+                UserDTO dto = User.toDTO(user);
+                dto.setCars(List.of(car(i * CARS_PER_USER), car(i * CARS_PER_USER + 1)));
+                // The password is write-only in UserDTO, so it is added to the JSON by hand.
+                ObjectNode json = mapper.valueToTree(dto);
+                json.put("password", "password123");
+                out.write(mapper.writeValueAsString(json));
+                out.newLine();
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeak() {
+        System.gc();
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void importFile(Heap heap) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            userImportService.importUsers(input, OutputStream.nullOutputStream());
+        }
+        heap.peakHeapMb = heapPools().stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum() / (1024.0 * 1024.0);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+    }
+
+    private static Car car(long index) {
+        Car car = BenchmarkFixtures.car(LicensePlates.plate(index));
+        car.setId(null);
+        return car;
+    }
+}
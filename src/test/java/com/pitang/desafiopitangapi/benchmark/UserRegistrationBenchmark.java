@@ -0,0 +1,105 @@
+package com.pitang.desafiopitangapi.benchmark;
+
+import com.pitang.desafiopitangapi.LicensePlates;
+import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import com.pitang.desafiopitangapi.service.CarService;
+import com.pitang.desafiopitangapi.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registers users with 1, 10 and 100 cars. {@code register} is the whole {@link UserService#register(UserDTO)}
+ * call, BCrypt included; {@code batchedCars} and {@code perCarCars} isolate the car inserts, comparing the
+ * single {@code IN} check with batched inserts against the previous exists query and INSERT per car.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UserRegistrationBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int cars;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private CarService carService;
+    private UserRepository userRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start("user-registration");
+        userService = context.getBean(UserService.class);
+        carService = context.getBean(CarService.class);
+        userRepository = context.getBean(UserRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDTO register() {
+        long id = sequence.getAndIncrement();
+        UserDTO user = User.toDTO(user(id));
+        user.setPassword("password123");
+        user.setCars(cars(id));
+        return userService.register(user).join();
+    }
+
+    @Benchmark
+    public List<Car> batchedCars() {
+        long id = sequence.getAndIncrement();
+        return transactionTemplate.execute(status ->
+                carService.registerAll(cars(id), userRepository.save(user(id))));
+    }
+
+    @Benchmark
+    public List<Car> perCarCars() {
+        long id = sequence.getAndIncrement();
+        return transactionTemplate.execute(status -> {
+            User owner = userRepository.save(user(id));
+            List<Car> saved = new ArrayList<>(cars);
+            for (Car car : cars(id)) {
+                car.setUser(owner);
+                saved.add(carService.register(car, null));
+            }
+            return saved;
+        });
+    }
+
+    private static User user(long id) {
+        User user = BenchmarkFixtures.user(0);
+        user.setId(null);
+        user.setCars(null);
+        user.setLogin("user-" + id);
+        user.setEmail("user" + id + "@pitang.com");
+        return user;
+    }
+
+    private List<Car> cars(long id) {
+        List<Car> list = new ArrayList<>(cars);
+        for (int i = 0; i < cars; i++) {
+            Car car = BenchmarkFixtures.car(LicensePlates.plate(id * cars + i));
+            car.setId(null);
+            list.add(car);
+        }
+        return list;
+    }
+}
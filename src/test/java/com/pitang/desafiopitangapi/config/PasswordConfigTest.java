@@ -0,0 +1,32 @@
+package com.pitang.desafiopitangapi.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordConfigTest {
+
+    @Test
+    @DisplayName("Calibration never goes below the minimum strength")
+    public void testCalibrateMinimum() {
+        assertEquals(4, PasswordConfig.calibrate(Duration.ZERO, 4, 12));
+    }
+
+    @Test
+    @DisplayName("Calibration never goes above the maximum strength")
+    public void testCalibrateMaximum() {
+        assertEquals(6, PasswordConfig.calibrate(Duration.ofHours(1), 4, 6));
+    }
+
+    @Test
+    @DisplayName("A fixed strength skips the calibration")
+    public void testFixedStrength() {
+        PasswordConfig config = new PasswordConfig(5, Duration.ofHours(1), 4, 12);
+
+        assertEquals(5, config.strength());
+        assertTrue(config.passwordEncoder().encode("password123").startsWith("$2a$05$"));
+    }
+}
@@ -0,0 +1,131 @@
+package com.pitang.desafiopitangapi.config;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerifiedTokenCacheTest {
+
+    private MutableClock clock;
+    private VerifiedTokenCache cache;
+    private TokenCrypto tokenCrypto;
+    private UserAuthenticationProvider provider;
+    private String token;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock(Instant.now());
+        cache = new VerifiedTokenCache(100, clock);
+        tokenCrypto = Mockito.spy(new TokenCrypto("secret-key-pitang"));
+
+        provider = new UserAuthenticationProvider();
+        ReflectionTestUtils.setField(provider, "expiration", "3600000");
+        ReflectionTestUtils.setField(provider, "tokenCrypto", tokenCrypto);
+        ReflectionTestUtils.setField(provider, "verifiedTokenCache", cache);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+
+        UserDTO user = new UserDTO();
+        user.setId("123e4567-e89b-12d3-a456-426614174000");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setLogin("test");
+        token = provider.createToken(user);
+    }
+
+    @Test
+    @DisplayName("A cached token is not verified again and gets a new authentication on each call")
+    public void testHitSkipsVerification() {
+        Authentication first = provider.validateToken(token);
+        Authentication second = provider.validateToken(token);
+
+        Mockito.verify(tokenCrypto, Mockito.times(1)).verify(token);
+        assertNotSame(first, second);
+        assertEquals(first.getPrincipal(), second.getPrincipal());
+        assertEquals(new UserPrincipal("123e4567-e89b-12d3-a456-426614174000", "test"), second.getPrincipal());
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("An unknown token is a miss")
+    public void testMiss() {
+        assertNull(cache.get(token));
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    @DisplayName("An entry expires at the exp claim of its token")
+    public void testExpiresAtExp() {
+        UserPrincipal principal = new UserPrincipal("id", "test");
+        cache.put(token, principal, clock.instant().plusSeconds(60));
+
+        clock.advance(Duration.ofSeconds(59));
+        assertEquals(principal, cache.get(token));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertNull(cache.get(token));
+    }
+
+    @Test
+    @DisplayName("Tokens already expired or without exp are not cached")
+    public void testExpiredNotCached() {
+        cache.put(token, new UserPrincipal("id", "test"), clock.instant());
+        cache.put("other", new UserPrincipal("id", "test"), null);
+
+        assertNull(cache.get(token));
+        assertNull(cache.get("other"));
+    }
+
+    @Test
+    @DisplayName("A cached token with one signature byte changed is still rejected")
+    public void testTamperedSignatureRejected() {
+        provider.validateToken(token);
+        // The last character carries padding bits, so change one in the middle of the signature.
+        int index = token.length() - 10;
+        char changed = token.charAt(index) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, index) + changed + token.substring(index + 1);
+
+        assertNull(cache.get(tampered));
+        assertThrows(JWTVerificationException.class, () -> provider.validateToken(tampered));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
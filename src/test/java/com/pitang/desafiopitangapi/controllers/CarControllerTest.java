@@ -74,8 +74,9 @@ public class CarControllerTest {
     public void testFindAllByLoggedUser(){
         HttpServletRequest request = new MockHttpServletRequest();
 
-        Mockito.when(carService.findAllByLoggedUser(request)).thenReturn((List<CarDTO>) new ArrayList<>(List.of(carDTO)));
-        ResponseEntity<List<CarDTO>> response = carController.findAllByLoggedUser(request);
+        Mockito.when(carService.findFleetETag(request)).thenReturn("\"2\"");
+        Mockito.when(carService.findAllByLoggedUser(request, "\"2\"")).thenReturn((List<CarDTO>) new ArrayList<>(List.of(carDTO)));
+        ResponseEntity<List<CarDTO>> response = carController.findAllByLoggedUser(null, request);
 
         assertNotNull(response);
         assertNotNull(response.getBody());
@@ -83,6 +84,20 @@ public class CarControllerTest {
         assertEquals(ResponseEntity.class, response.getClass());
         assertEquals(ArrayList.class, response.getBody().getClass());
         assertEquals(Car.class, response.getBody().get(0).getClass());
+        assertEquals("\"2\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("User's car list not modified since the given ETag")
+    public void testFindAllByLoggedUserNotModified(){
+        HttpServletRequest request = new MockHttpServletRequest();
+
+        Mockito.when(carService.findFleetETag(request)).thenReturn("\"2\"");
+        ResponseEntity<List<CarDTO>> response = carController.findAllByLoggedUser("\"1\", \"2\"", request);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        Mockito.verify(carService, Mockito.never()).findAllByLoggedUser(Mockito.any(), Mockito.any());
     }
 
     @Test
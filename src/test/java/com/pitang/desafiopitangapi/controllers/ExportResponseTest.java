@@ -0,0 +1,24 @@
+package com.pitang.desafiopitangapi.controllers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportResponseTest {
+
+    @Test
+    @DisplayName("gzip is accepted by name or wildcard, unless its quality is zero")
+    public void testAcceptsGzip() {
+        assertTrue(ExportResponse.acceptsGzip("gzip, deflate, br"));
+        assertTrue(ExportResponse.acceptsGzip("deflate;q=1.0, x-gzip;q=0.5"));
+        assertTrue(ExportResponse.acceptsGzip("*"));
+        assertTrue(ExportResponse.acceptsGzip("gzip;q=0.001"));
+
+        assertFalse(ExportResponse.acceptsGzip(null));
+        assertFalse(ExportResponse.acceptsGzip("deflate, br"));
+        assertFalse(ExportResponse.acceptsGzip("gzip;q=0"));
+        assertFalse(ExportResponse.acceptsGzip("gzip; Q=0.000, *"));
+        assertFalse(ExportResponse.acceptsGzip("*;q=0.0"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.pitang.desafiopitangapi.controllers;
+
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Floods {@code POST /signin} from more clients than there are request threads while measuring
+ * {@code GET /users/{id}}: with hashing off the request threads the GET latency must stay close to its
+ * idle value, and the logins beyond the hashing pool and its queue must be refused with 503. Refused
+ * clients wait for the {@code Retry-After} of the response before trying again.
+ * <p>
+ * Wall-clock latencies depend on the machine, so this runs only in the {@code perf} profile
+ * ({@code mvn -Pperf test}); the shedding itself is checked deterministically in {@code PasswordHasherTest}.
+ * </p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:login-storm-test",
+        "server.tomcat.threads.max=8",
+        "api.security.hash.threads=1",
+        "api.security.hash.queue-capacity=2"
+})
+@Tag("perf")
+public class LoginStormLoadTest {
+
+    private static final int STORM_CLIENTS = 32;
+    private static final int SAMPLES = 50;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    @DisplayName("GET latency stays flat during a login storm and excess logins are shed with 503")
+    public void testGetLatencyDuringLoginStorm() throws Exception {
+        User user = user("storm");
+        user.setPassword(passwordEncoder.encode("password123"));
+        user = userRepository.save(user);
+        HttpRequest get = HttpRequest.newBuilder(uri("/users/" + user.getId())).GET().build();
+        HttpRequest signIn = HttpRequest.newBuilder(uri("/signin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"login\":\"storm\",\"password\":\"password123\"}"))
+                .build();
+
+        sampleLatencies(get);
+        long idleP95 = percentile95(sampleLatencies(get));
+
+        AtomicBoolean storming = new AtomicBoolean(true);
+        ConcurrentHashMap<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        ExecutorService storm = Executors.newFixedThreadPool(STORM_CLIENTS);
+        for (int i = 0; i < STORM_CLIENTS; i++) {
+            storm.submit(() -> {
+                while (storming.get()) {
+                    HttpResponse<Void> response = client.send(signIn, HttpResponse.BodyHandlers.discarding());
+                    statuses.computeIfAbsent(response.statusCode(), key -> new AtomicInteger()).incrementAndGet();
+                    // Shed clients back off as told, like a well-behaved client would.
+                    Optional<String> retryAfter = response.headers().firstValue("Retry-After");
+                    if (retryAfter.isPresent())
+                        Thread.sleep(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.get())));
+                }
+                return null;
+            });
+        }
+
+        long stormP95;
+        try {
+            Thread.sleep(500);
+            stormP95 = percentile95(sampleLatencies(get));
+        } finally {
+            storming.set(false);
+            storm.shutdown();
+            assertTrue(storm.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        assertTrue(statuses.containsKey(200), "some logins succeed: " + statuses);
+        assertTrue(statuses.containsKey(503), "excess logins are shed: " + statuses);
+        assertFalse(statuses.containsKey(401), "no login fails: " + statuses);
+        assertTrue(stormP95 < Math.max(250, idleP95 * 5),
+                "GET p95 during the storm was " + stormP95 + " ms, idle " + idleP95 + " ms");
+    }
+
+    private List<Long> sampleLatencies(HttpRequest request) throws Exception {
+        List<Long> latencies = new ArrayList<>(SAMPLES);
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            assertEquals(200, response.statusCode());
+        }
+        return latencies;
+    }
+
+    private static long percentile95(List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(sorted.size() * 0.95) - 1);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api" + path);
+    }
+}
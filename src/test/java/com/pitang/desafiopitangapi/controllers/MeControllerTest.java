@@ -1,6 +1,7 @@
 package com.pitang.desafiopitangapi.controllers;
 
 import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.dto.VersionedDTO;
 import com.pitang.desafiopitangapi.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.AfterEach;
@@ -66,9 +67,9 @@ public class MeControllerTest {
     public void testFindByMe() {
         HttpServletRequest request = new MockHttpServletRequest();
 
-        when(userService.findByMe(request)).thenReturn(userDTO);
+        when(userService.findVersionedByMe(request)).thenReturn(new VersionedDTO<>(userDTO, "\"1-0\""));
 
-        ResponseEntity<UserDTO> response = meController.findByMe(request);
+        ResponseEntity<UserDTO> response = meController.findByMe(null, request);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
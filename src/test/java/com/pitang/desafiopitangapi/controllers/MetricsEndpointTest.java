@@ -0,0 +1,115 @@
+package com.pitang.desafiopitangapi.controllers;
+
+import com.pitang.desafiopitangapi.config.UserAuthenticationProvider;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the metrics published for Prometheus on the management port, which the API port does not serve.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:metrics-endpoint-test")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class MetricsEndpointTest {
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private UserAuthenticationProvider userAuthenticationProvider;
+
+    @Test
+    @DisplayName("Request latency, SQL per request, token validations, hashing and caches are published for Prometheus")
+    public void testPrometheusEndpoint() throws Exception {
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+        User user = userRepository.save(user("metrics"));
+        String bearer = "Bearer " + userAuthenticationProvider.createToken(User.toDTO(user));
+
+        mockMvc.perform(get("/users/" + user.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/cars").header(HttpHeaders.AUTHORIZATION, bearer)).andExpect(status().isOk());
+        mockMvc.perform(get("/cars").header(HttpHeaders.AUTHORIZATION, "Bearer invalid"));
+
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + managementPort + "/actuator/prometheus")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        String metrics = response.body();
+
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(metrics.contains("uri=\"/users/{id}\""));
+        assertTrue(metrics.contains("http_server_requests_sql_statements_count{"));
+        assertTrue(metrics.contains("http_server_requests_sql_time_seconds_count{"));
+        assertTrue(metrics.contains("auth_token_validations_total{"));
+        assertTrue(metrics.contains("result=\"invalid\""));
+        assertTrue(metrics.contains("password_hash_seconds_bucket{"));
+        assertTrue(metrics.contains("cache_gets_total{"));
+        assertTrue(metrics.contains("hibernate_statements_total{"));
+    }
+
+    @Test
+    @DisplayName("The actuator endpoints are not served on the API port")
+    public void testNotOnApiPort() throws Exception {
+        assertNotEquals(port, managementPort);
+        for (String endpoint : new String[]{"prometheus", "health"}) {
+            HttpResponse<Void> response = client.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/actuator/" + endpoint)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            assertNotEquals(200, response.statusCode());
+        }
+    }
+
+    @Test
+    @DisplayName("Requests without a token are counted as missing only on endpoints that require one")
+    public void testMissingTokenCountedOnProtectedPaths() throws Exception {
+        Counter missing = meterRegistry.get("auth.token.validations").tag("result", "missing").counter();
+        double before = missing.count();
+
+        mockMvc.perform(get("/users")).andExpect(status().isOk());
+        assertEquals(before, missing.count());
+
+        mockMvc.perform(get("/cars")).andExpect(status().isUnauthorized());
+        assertEquals(before + 1, missing.count());
+    }
+}
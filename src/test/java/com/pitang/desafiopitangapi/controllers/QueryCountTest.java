@@ -0,0 +1,169 @@
+package com.pitang.desafiopitangapi.controllers;
+
+import com.pitang.desafiopitangapi.config.UserAuthenticationProvider;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.pitang.desafiopitangapi.TestEntities.car;
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements issued by the read endpoints, so a lazy association loaded per row
+ * (N+1) shows up as a failing assertion instead of a slow listing in production.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-count-test",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // The statistics are global: keep the change-log poll and the last-login flush out of the counts.
+        "api.change-log.poll-interval=PT1H",
+        "api.last-login.flush-interval=PT1H"
+})
+@AutoConfigureMockMvc
+public class QueryCountTest {
+
+    private static final int USERS = 5;
+    private static final int CARS_PER_USER = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private UserAuthenticationProvider userAuthenticationProvider;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+        users.clear();
+
+        for (int i = 0; i < USERS; i++) {
+            User user = userRepository.save(user("user" + i));
+            for (int j = 0; j < CARS_PER_USER; j++) {
+                Car car = car(user, "QCT-" + i + "00" + j);
+                car.setModel("Model " + j);
+                carRepository.save(car);
+            }
+            users.add(user);
+        }
+    }
+
+    @Test
+    @DisplayName("Listing users loads their cars in the same statement")
+    public void testFindAllStatements() throws Exception {
+        assertEquals(1, countStatements(get("/users").accept(MediaType.APPLICATION_JSON)));
+    }
+
+    @Test
+    @DisplayName("A page of users costs one statement for the IDs and one for users with cars")
+    public void testFindPageStatements() throws Exception {
+        assertEquals(2, countStatements(get("/users").param("limit", "2").accept(MediaType.APPLICATION_JSON)));
+    }
+
+    @Test
+    @DisplayName("Finding a user by ID loads their cars in the same statement")
+    public void testFindByIdStatements() throws Exception {
+        assertEquals(1, countStatements(get("/users/" + users.get(0).getId())));
+    }
+
+    @Test
+    @DisplayName("The logged user is loaded with their cars in a single statement")
+    public void testMeStatements() throws Exception {
+        assertEquals(1, countStatements(get("/me").header(HttpHeaders.AUTHORIZATION, bearer(users.get(0)))));
+    }
+
+    @Test
+    @DisplayName("Listing the cars of the logged user costs one statement for the fleet ETag and one for the cars")
+    public void testFindCarsStatements() throws Exception {
+        assertEquals(2, countStatements(get("/cars").header(HttpHeaders.AUTHORIZATION, bearer(users.get(0)))));
+    }
+
+    @Test
+    @DisplayName("Listing a fleet unchanged since it was cached costs only the fleet ETag statement")
+    public void testFindCachedCarsStatements() throws Exception {
+        String bearer = bearer(users.get(0));
+        eTag(get("/cars").header(HttpHeaders.AUTHORIZATION, bearer));
+        assertEquals(1, countStatements(get("/cars").header(HttpHeaders.AUTHORIZATION, bearer)));
+    }
+
+    @Test
+    @DisplayName("A user not modified since the given ETag costs one statement and no entity load")
+    public void testFindByIdNotModifiedStatements() throws Exception {
+        String path = "/users/" + users.get(0).getId();
+        String eTag = eTag(get(path));
+        assertEquals(1, countStatements(get(path).header(HttpHeaders.IF_NONE_MATCH, eTag), status().isNotModified()));
+    }
+
+    @Test
+    @DisplayName("The logged user not modified since the given ETag costs one statement and no entity load")
+    public void testMeNotModifiedStatements() throws Exception {
+        String bearer = bearer(users.get(0));
+        String eTag = eTag(get("/me").header(HttpHeaders.AUTHORIZATION, bearer));
+        assertEquals(1, countStatements(get("/me").header(HttpHeaders.AUTHORIZATION, bearer)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag), status().isNotModified()));
+    }
+
+    @Test
+    @DisplayName("A fleet not modified since the given ETag costs one statement and does not load the cars")
+    public void testFindCarsNotModifiedStatements() throws Exception {
+        String bearer = bearer(users.get(0));
+        String eTag = eTag(get("/cars").header(HttpHeaders.AUTHORIZATION, bearer));
+        assertEquals(1, countStatements(get("/cars").header(HttpHeaders.AUTHORIZATION, bearer)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag), status().isNotModified()));
+    }
+
+    private long countStatements(RequestBuilder request) throws Exception {
+        return countStatements(request, status().isOk());
+    }
+
+    private long countStatements(RequestBuilder request, ResultMatcher expectedStatus) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(request).andExpect(expectedStatus);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private String eTag(RequestBuilder request) throws Exception {
+        String eTag = mockMvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        return eTag;
+    }
+
+    private String bearer(User user) {
+        return "Bearer " + userAuthenticationProvider.createToken(User.toDTO(user));
+    }
+}
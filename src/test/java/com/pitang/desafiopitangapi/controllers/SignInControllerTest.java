@@ -5,8 +5,11 @@ import com.pitang.desafiopitangapi.domain.dto.UserDTO;
 import com.pitang.desafiopitangapi.domain.mapper.UserMapper;
 import com.pitang.desafiopitangapi.domain.model.User;
 import com.pitang.desafiopitangapi.domain.dto.LoginRequestDTO;
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
 import com.pitang.desafiopitangapi.exceptions.InvalidTokenException;
 import com.pitang.desafiopitangapi.repository.UserRepository;
+import com.pitang.desafiopitangapi.service.PasswordHasher;
+import com.pitang.desafiopitangapi.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,13 +17,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDate;
 import java.util.Date;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,7 +41,7 @@ public class SignInControllerTest {
     private UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Mock
     private UserMapper userMapper;
@@ -43,6 +49,9 @@ public class SignInControllerTest {
     @Mock
     private UserAuthenticationProvider userAuthenticationProvider;
 
+    @Mock
+    private UserService userService;
+
     private User user;
     private LoginRequestDTO loginRequestDTO;
     private UserDTO userDTO;
@@ -80,49 +89,97 @@ public class SignInControllerTest {
     @Test
     @DisplayName("Failed sign-in due to wrong password")
     public void testSignInFailureWrongPassword() {
-        when(userRepository.findByLogin("test")).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        when(userRepository.findWithCarsByLogin("test")).thenReturn(Optional.of(user));
+        hasherRunsLookup(false);
 
         LoginRequestDTO wrongPasswordLogin = new LoginRequestDTO("test", "wrongpassword");
 
-        Exception exception = assertThrows(InvalidTokenException.class, () -> {
-            signInController.signIn(wrongPasswordLogin);
+        CompletionException exception = assertThrows(CompletionException.class, () -> {
+            signInController.signIn(wrongPasswordLogin).join();
         });
 
-        assertEquals("Invalid login or password", exception.getMessage());
+        assertInstanceOf(InvalidTokenException.class, exception.getCause());
+        assertEquals("Invalid login or password", exception.getCause().getMessage());
 
-        verify(userRepository).findByLogin("test");
-        verify(passwordEncoder).matches("wrongpassword", "hashedPassword123");
+        verify(userRepository).findWithCarsByLogin("test");
+        verify(passwordHasher).verify(eq("wrongpassword"), any(), any());
     }
 
     @Test
     @DisplayName("Failed sign-in due to invalid credentials")
     public void testSignInFailureInvalidCredentials() {
-        when(userRepository.findByLogin("invalid")).thenReturn(Optional.empty());
+        when(userRepository.findWithCarsByLogin("invalid")).thenReturn(Optional.empty());
+        hasherRunsLookup(true);
 
         LoginRequestDTO invalidLogin = new LoginRequestDTO("invalid", "wrongpassword");
 
-        Exception exception = assertThrows(InvalidTokenException.class, () -> {
-            signInController.signIn(invalidLogin);
+        CompletionException exception = assertThrows(CompletionException.class, () -> {
+            signInController.signIn(invalidLogin).join();
         });
 
-        assertEquals("Invalid login or password", exception.getMessage());
+        assertInstanceOf(InvalidTokenException.class, exception.getCause());
+        assertEquals("Invalid login or password", exception.getCause().getMessage());
 
-        verify(userRepository).findByLogin("invalid");
+        verify(userRepository).findWithCarsByLogin("invalid");
     }
 
     @Test
     @DisplayName("Unexpected exception during sign-in")
     public void testSignInUnexpectedException() {
-        when(userRepository.findByLogin("test")).thenThrow(new RuntimeException("Database error"));
+        when(userRepository.findWithCarsByLogin("test")).thenThrow(new RuntimeException("Database error"));
+        hasherRunsLookup(true);
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> {
+            signInController.signIn(loginRequestDTO).join();
+        });
+
+        assertEquals("Database error", exception.getCause().getMessage());
+
+        verify(userRepository).findWithCarsByLogin("test");
+    }
 
-        Exception exception = assertThrows(RuntimeException.class, () -> {
+    @Test
+    @DisplayName("Sign-in refused without queueing or querying the user when the hashing pool is saturated")
+    public void testSignInRejectedWhenBusy() {
+        when(passwordHasher.verify(anyString(), any(), any()))
+                .thenThrow(new BusinessException("Server busy, try again later", HttpStatus.SERVICE_UNAVAILABLE));
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> {
             signInController.signIn(loginRequestDTO);
         });
 
-        assertEquals("Database error", exception.getMessage());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        verifyNoInteractions(userRepository, userAuthenticationProvider);
+    }
 
-        verify(userRepository).findByLogin("test");
+    @Test
+    @DisplayName("Hash of a lower strength replaced after a successful sign-in")
+    public void testSignInRehashesPassword() {
+        when(userRepository.findWithCarsByLogin("test")).thenReturn(Optional.of(user));
+        hasherRunsLookup(true);
+        when(passwordHasher.needsRehash("hashedPassword123")).thenReturn(true);
+        when(passwordHasher.encode("password123")).thenReturn(CompletableFuture.completedFuture("newHash"));
+        when(userAuthenticationProvider.createToken(any())).thenReturn("token");
+
+        assertEquals(200, signInController.signIn(loginRequestDTO).join().getStatusCode().value());
+
+        verify(userService).rehashPassword(user, "newHash");
+        verify(userService).updateLastLogin(user);
+    }
+
+    /**
+     * Makes the mocked hasher run the user lookup, as the real one does on its pool, and answer
+     * whether the password matches.
+     */
+    private void hasherRunsLookup(boolean matches) {
+        when(passwordHasher.verify(anyString(), any(), any())).thenAnswer(invocation -> {
+            Supplier<Optional<User>> loader = invocation.getArgument(1);
+            try {
+                return CompletableFuture.completedFuture(loader.get().filter(found -> matches));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
     }
 
 }
@@ -0,0 +1,94 @@
+package com.pitang.desafiopitangapi.controllers;
+
+import com.pitang.desafiopitangapi.config.UserAuthenticationProvider;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+
+import static com.pitang.desafiopitangapi.TestEntities.car;
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the requests authenticated by the {@code UserPrincipal} built from the token claims,
+ * including tokens that are still valid after their user was deleted.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:token-principal-test")
+@AutoConfigureMockMvc
+public class TokenPrincipalTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private UserAuthenticationProvider userAuthenticationProvider;
+
+    private User owner;
+    private User other;
+    private Car car;
+
+    @BeforeEach
+    public void setUp() {
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+        owner = userRepository.save(user("owner"));
+        other = userRepository.save(user("other"));
+        car = carRepository.save(car(owner, "TPT-0001"));
+        carRepository.save(car(other, "TPT-0002"));
+    }
+
+    @Test
+    @DisplayName("The cars are listed and found for the user in the token claims only")
+    public void testCarsOfPrincipal() throws Exception {
+        String bearer = bearer(owner);
+
+        mockMvc.perform(get("/cars").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].licensePlate").value("TPT-0001"));
+        mockMvc.perform(get("/cars/" + car.getId()).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.licensePlate").value("TPT-0001"));
+        mockMvc.perform(get("/cars").header(HttpHeaders.AUTHORIZATION, bearer(other)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].licensePlate").value("TPT-0002"));
+    }
+
+    @Test
+    @DisplayName("A valid token of a deleted user is rejected on reads")
+    public void testDeletedUser() throws Exception {
+        String bearer = bearer(owner);
+        mockMvc.perform(get("/cars").header(HttpHeaders.AUTHORIZATION, bearer)).andExpect(status().isOk());
+
+        carRepository.delete(car);
+        userRepository.deleteById(owner.getId());
+
+        mockMvc.perform(get("/cars").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/cars/" + car.getId()).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String bearer(User user) {
+        return "Bearer " + userAuthenticationProvider.createToken(User.toDTO(user));
+    }
+}
@@ -1,6 +1,7 @@
 package com.pitang.desafiopitangapi.controllers;
 
 import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.dto.VersionedDTO;
 import com.pitang.desafiopitangapi.domain.model.Car;
 import com.pitang.desafiopitangapi.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -57,8 +59,8 @@ public class UserControllerTest {
     @Test
     @DisplayName("User Created")
     public void testRegisterUser() {
-        Mockito.when(userService.register(Mockito.any())).thenReturn(userDTO);
-        ResponseEntity<UserDTO> response = userController.register(userDTO);
+        Mockito.when(userService.register(Mockito.any())).thenReturn(CompletableFuture.completedFuture(userDTO));
+        ResponseEntity<UserDTO> response = userController.register(userDTO).join();
 
         assertNotNull(response);
         assertNotNull(response.getBody());
@@ -84,14 +86,27 @@ public class UserControllerTest {
     @Test
     @DisplayName("User found")
     public void testGetUserById() {
-        Mockito.when(userService.findById(userDTO.getId())).thenReturn(userDTO);
-        ResponseEntity<UserDTO> response = userController.getUserById(userDTO.getId());
+        Mockito.when(userService.findVersionedById(userDTO.getId())).thenReturn(new VersionedDTO<>(userDTO, "\"0-0\""));
+        ResponseEntity<UserDTO> response = userController.getUserById(userDTO.getId(), null);
 
         assertNotNull(response);
         assertNotNull(response.getBody());
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(ResponseEntity.class, response.getClass());
         assertEquals(UserDTO.class, response.getBody().getClass());
+        assertEquals("\"0-0\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("User not modified since the given ETag")
+    public void testGetUserByIdNotModified() {
+        Mockito.when(userService.findETag(userDTO.getId())).thenReturn("\"3-1\"");
+        ResponseEntity<UserDTO> response = userController.getUserById(userDTO.getId(), "W/\"3-1\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"3-1\"", response.getHeaders().getETag());
+        Mockito.verify(userService, Mockito.never()).findVersionedById(Mockito.any());
     }
     
     @Test
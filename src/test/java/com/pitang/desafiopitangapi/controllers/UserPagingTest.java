@@ -0,0 +1,146 @@
+package com.pitang.desafiopitangapi.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import com.pitang.desafiopitangapi.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the keyset pagination of {@code GET /users?limit=} and the NDJSON stream of {@code GET /users}.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:user-paging-test")
+@AutoConfigureMockMvc
+public class UserPagingTest {
+
+    private static final int USERS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    private final List<String> ids = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+        ids.clear();
+        for (int i = 0; i < USERS; i++) {
+            ids.add(userRepository.save(user("page" + i)).getId());
+        }
+        ids.sort(null);
+    }
+
+    @Test
+    @DisplayName("Following the cursors returns every user once, in ID order, and the last page has no cursor")
+    public void testFollowCursors() throws Exception {
+        List<String> seen = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        String after = null;
+        do {
+            JsonNode page = page(2, after);
+            page.get("items").forEach(item -> seen.add(item.get("id").asText()));
+            sizes.add(page.get("items").size());
+            after = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (after != null);
+
+        assertEquals(List.of(2, 2, 1), sizes);
+        assertEquals(ids, seen);
+    }
+
+    @Test
+    @DisplayName("A page that holds every remaining user has no next cursor")
+    public void testLastPage() throws Exception {
+        JsonNode page = page(USERS, null);
+
+        assertEquals(USERS, page.get("items").size());
+        assertTrue(page.get("nextCursor").isNull());
+    }
+
+    @Test
+    @DisplayName("A cursor that is not valid Base64 is rejected")
+    public void testBadCursor() throws Exception {
+        mockMvc.perform(get("/users").param("limit", "2").param("after", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("The limit must be between 1 and the maximum page size")
+    public void testLimitBounds() throws Exception {
+        mockMvc.perform(get("/users").param("limit", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/users").param("limit", String.valueOf(UserService.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isBadRequest());
+        assertEquals(USERS, page(UserService.MAX_PAGE_SIZE, null).get("items").size());
+        assertEquals(1, page(1, null).get("items").size());
+    }
+
+    @Test
+    @DisplayName("The NDJSON stream writes one user per line, formatted like the JSON responses")
+    public void testStreamAll() throws Exception {
+        MvcResult started = mockMvc.perform(get("/users").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(USERS, lines.length);
+        List<String> streamed = new ArrayList<>();
+        for (String line : lines) {
+            JsonNode user = objectMapper.readTree(line);
+            streamed.add(user.get("id").asText());
+            assertFalse(user.has("password"));
+            assertTrue(user.get("cars").isNull());
+        }
+        streamed.sort(null);
+        assertEquals(ids, streamed);
+
+        JsonNode streamedUser = objectMapper.readTree(lines[0]);
+        JsonNode jsonUser = objectMapper.readTree(mockMvc.perform(get("/users/" + streamedUser.get("id").asText()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(jsonUser.get("createdAt"), streamedUser.get("createdAt"));
+        assertEquals(jsonUser.get("birthday"), streamedUser.get("birthday"));
+    }
+
+    private JsonNode page(int limit, String after) throws Exception {
+        var request = get("/users").param("limit", String.valueOf(limit));
+        if (after != null)
+            request.param("after", after);
+        return objectMapper.readTree(mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,88 @@
+package com.pitang.desafiopitangapi.domain.validation;
+
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FieldValidatorTest {
+
+    @Test
+    @DisplayName("Legacy and Mercosul license plates are accepted in any case")
+    public void testValidLicensePlates() {
+        assertTrue(FieldValidator.isValidLicensePlate("ABC-1234"));
+        assertTrue(FieldValidator.isValidLicensePlate("abc-1234"));
+        assertTrue(FieldValidator.isValidLicensePlate("ABC1D23"));
+        assertTrue(FieldValidator.isValidLicensePlate("abc1d23"));
+    }
+
+    @Test
+    @DisplayName("Malformed license plates are rejected")
+    public void testInvalidLicensePlates() {
+        assertFalse(FieldValidator.isValidLicensePlate(""));
+        assertFalse(FieldValidator.isValidLicensePlate("ABC-123"));
+        assertFalse(FieldValidator.isValidLicensePlate("ABC12345"));
+        assertFalse(FieldValidator.isValidLicensePlate("AB1-1234"));
+        assertFalse(FieldValidator.isValidLicensePlate("ABC1234"));
+        assertFalse(FieldValidator.isValidLicensePlate("ABC1DD3"));
+        assertFalse(FieldValidator.isValidLicensePlate("ÁBC-1234"));
+    }
+
+    @Test
+    @DisplayName("Email and phone formats match the previous regular expressions")
+    public void testEmailAndPhone() {
+        assertTrue(FieldValidator.isValidEmail("test.user@pitang.com"));
+        assertFalse(FieldValidator.isValidEmail("test.user@pitang"));
+        assertTrue(FieldValidator.isValidPhone("(81) 99999-0000"));
+        assertTrue(FieldValidator.isValidPhone("+55 81 999990000"));
+        assertTrue(FieldValidator.isValidPhone("999990000"));
+        assertFalse(FieldValidator.isValidPhone("123"));
+    }
+
+    @Test
+    @DisplayName("Collect-all validation reports every invalid field, missing ones first")
+    public void testValidateAll() {
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setEmail("invalid-email");
+        user.setBirthday(new Date());
+        user.setPassword("password123");
+        user.setPhone("123");
+        user.setCreatedAt(LocalDate.now());
+
+        List<FieldError> errors = user.validateAll();
+
+        assertEquals(List.of(new FieldError("login", FieldError.MISSING),
+                new FieldError("email", FieldError.INVALID),
+                new FieldError("phone", FieldError.INVALID)), errors);
+        BusinessException exception = assertThrows(BusinessException.class, user::validate);
+        assertEquals(FieldError.MISSING, exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    @DisplayName("A valid car has no errors and gets the usage defaults")
+    public void testValidCar() {
+        Car car = new Car();
+        car.setYear(FieldValidator.currentYear());
+        car.setLicensePlate("ABC1D23");
+        car.setModel("Audi");
+        car.setColor("White");
+
+        assertTrue(car.validateAll().isEmpty());
+        car.validate();
+        assertFalse(car.getUsage());
+        assertEquals(0, car.getUsageCount());
+
+        car.setYear(FieldValidator.currentYear() + 1);
+        assertEquals(List.of(new FieldError("year", FieldError.INVALID)), car.validateAll());
+    }
+}
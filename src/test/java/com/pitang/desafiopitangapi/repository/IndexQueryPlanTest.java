@@ -0,0 +1,120 @@
+package com.pitang.desafiopitangapi.repository;
+
+import com.pitang.desafiopitangapi.config.SecondLevelCacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.pitang.desafiopitangapi.LicensePlates.plate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds a large dataset into H2 and checks, with {@code EXPLAIN}, that the lookups used by
+ * {@link UserRepository} and {@link CarRepository} are served by the declared indexes.
+ */
+@DataJpaTest
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IndexQueryPlanTest {
+
+    private static final int USERS = 20_000;
+    private static final int CARS_PER_USER = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void seed() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USERS", Integer.class);
+        if (count != null && count > 0)
+            return;
+
+        List<Object[]> users = new ArrayList<>(USERS);
+        List<Object[]> cars = new ArrayList<>(USERS * CARS_PER_USER);
+        Date birthday = Date.valueOf(LocalDate.of(1990, 1, 1));
+        Date createdAt = Date.valueOf(LocalDate.now());
+        for (int i = 0; i < USERS; i++) {
+            String userId = "user-" + i;
+            users.add(new Object[]{userId, "First", "Last", "user" + i + "@test.com", birthday,
+                    "login-" + i, "password", "81900000000", createdAt});
+            for (int j = 0; j < CARS_PER_USER; j++) {
+                int carIndex = i * CARS_PER_USER + j;
+                cars.add(new Object[]{"car-" + carIndex, 2020, plate(carIndex), "Model " + j, "Black",
+                        carIndex % 100 == 0, j, userId});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO USERS (USER_ID, FIRST_NAME, LAST_NAME, EMAIL, BIRTHDAY, LOGIN, "
+                + "PASSWORD, PHONE, CREATED_AT, VERSION, FLEET_VERSION) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO CAR (CAR_ID, CAR_YEAR, LICENSE_PLATE, MODEL, COLOR, USAGE, "
+                + "USAGE_COUNT, USER_ID) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", cars);
+    }
+
+    @Test
+    @DisplayName("User lookup by login uses the unique login index")
+    public void testFindByLoginPlan() {
+        assertTrue(explain("SELECT * FROM USERS WHERE LOGIN = 'login-12345'").contains("UK_USERS_LOGIN"));
+    }
+
+    @Test
+    @DisplayName("User lookup by email uses the unique email index")
+    public void testExistsByEmailPlan() {
+        assertTrue(explain("SELECT USER_ID FROM USERS WHERE EMAIL = 'user12345@test.com'").contains("UK_USERS_EMAIL"));
+    }
+
+    @Test
+    @DisplayName("Car lookup by license plate uses the unique plate index")
+    public void testExistsByLicensePlatePlan() {
+        assertTrue(explain("SELECT CAR_ID FROM CAR WHERE LICENSE_PLATE = '" + plate(4321) + "'")
+                .contains("UK_CAR_LICENSE_PLATE"));
+    }
+
+    @Test
+    @DisplayName("Fleet listing and ownership lookups do not scan the car table")
+    public void testFindByUserIdPlans() {
+        assertIndexed(explain("SELECT * FROM CAR WHERE USER_ID = 'user-42' ORDER BY USAGE_COUNT DESC, MODEL ASC"));
+        assertIndexed(explain("SELECT * FROM CAR WHERE CAR_ID = 'car-126' AND USER_ID = 'user-42'"));
+        assertIndexed(explain("SELECT * FROM CAR WHERE USER_ID = 'user-42' AND USAGE = TRUE"));
+    }
+
+    @Test
+    @DisplayName("Cars in use are found through the usage index")
+    public void testFindByUsageTruePlan() {
+        assertIndexed(explain("SELECT * FROM CAR WHERE USAGE = TRUE"));
+    }
+
+    @Test
+    @DisplayName("Duplicated login, email and license plate are rejected by the database")
+    public void testUniqueConstraints() {
+        Date now = Date.valueOf(LocalDate.now());
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO USERS (USER_ID, FIRST_NAME, LAST_NAME, EMAIL, BIRTHDAY, LOGIN, PASSWORD, PHONE, CREATED_AT, "
+                        + "VERSION, FLEET_VERSION) VALUES ('dup-1', 'a', 'b', 'new@test.com', ?, 'login-1', 'p', '81900000000', ?, 0, 0)", now, now));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO USERS (USER_ID, FIRST_NAME, LAST_NAME, EMAIL, BIRTHDAY, LOGIN, PASSWORD, PHONE, CREATED_AT, "
+                        + "VERSION, FLEET_VERSION) VALUES ('dup-2', 'a', 'b', 'user1@test.com', ?, 'new-login', 'p', '81900000000', ?, 0, 0)", now, now));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO CAR (CAR_ID, CAR_YEAR, LICENSE_PLATE, MODEL, COLOR, USAGE, USAGE_COUNT, USER_ID) "
+                        + "VALUES ('dup-car', 2020, ?, 'm', 'c', FALSE, 0, 'user-1')", plate(1)));
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    private static void assertIndexed(String plan) {
+        assertFalse(plan.contains("tableScan"), () -> "Expected an index lookup but got: " + plan);
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.pitang.desafiopitangapi.repository;
+
+import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.service.LastLoginRecorder;
+import com.pitang.desafiopitangapi.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.pitang.desafiopitangapi.TestEntities.car;
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks through the Hibernate statistics that users, cars and lookups by login are served from the
+ * second-level and query caches, that they outlive the last logins of other users, and that a user update
+ * is never followed by a stale read.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:second-level-cache-test",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // The statistics are global: keep the change-log poll and the last-login flush out of the counts.
+        "api.change-log.poll-interval=PT1H",
+        "api.last-login.flush-interval=PT1H"
+})
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+
+        user = userRepository.save(user("cached"));
+    }
+
+    @Test
+    @DisplayName("A user read by ID is served from the second-level cache without a statement")
+    public void testFindUserByIdHit() {
+        userRepository.findById(user.getId()).orElseThrow();
+
+        statistics.clear();
+        assertEquals("Test", userRepository.findById(user.getId()).orElseThrow().getFirstName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("users").getHitCount());
+    }
+
+    @Test
+    @DisplayName("A car read by ID is served from the second-level cache without a statement")
+    public void testFindCarByIdHit() {
+        Car car = carRepository.save(car(user, "SLC-0001"));
+        carRepository.findById(car.getId()).orElseThrow();
+
+        statistics.clear();
+        assertEquals("SLC-0001", carRepository.findById(car.getId()).orElseThrow().getLicensePlate());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("cars").getHitCount());
+    }
+
+    @Test
+    @DisplayName("A lookup by login is served from the query cache without a statement")
+    public void testFindByLoginHit() {
+        userRepository.findByLogin("cached").orElseThrow();
+
+        statistics.clear();
+        assertEquals(user.getId(), userRepository.findByLogin("cached").orElseThrow().getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("A cached user and lookup by login are still hits after other users' logins are written")
+    public void testHitSurvivesConcurrentLogins() {
+        List<String> others = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            others.add(userRepository.save(user("login" + i)).getId());
+        }
+        userRepository.findById(user.getId()).orElseThrow();
+        userRepository.findByLogin("cached").orElseThrow();
+
+        CompletableFuture.allOf(others.stream()
+                .map(id -> CompletableFuture.runAsync(() -> lastLoginRecorder.record(id)))
+                .toArray(CompletableFuture[]::new)).join();
+        assertEquals(others.size(), lastLoginRecorder.flush());
+
+        statistics.clear();
+        assertEquals(user.getId(), userRepository.findByLogin("cached").orElseThrow().getId());
+        assertNull(userRepository.findById(user.getId()).orElseThrow().getLastLogin());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        lastLoginRecorder.record(user.getId());
+        lastLoginRecorder.flush();
+        assertEquals(LocalDate.now(), userRepository.findById(user.getId()).orElseThrow().getLastLogin());
+    }
+
+    @Test
+    @DisplayName("A user updated through the service is read back with the new data")
+    public void testUpdateIsVisible() {
+        userRepository.findById(user.getId()).orElseThrow();
+        userRepository.findByLogin("cached").orElseThrow();
+
+        UserDTO changed = User.toDTO(userRepository.findById(user.getId()).orElseThrow());
+        changed.setFirstName("Changed");
+        changed.setLogin("changed");
+        userService.update(user.getId(), changed);
+
+        assertEquals("Changed", userRepository.findById(user.getId()).orElseThrow().getFirstName());
+        assertTrue(userRepository.findByLogin("cached").isEmpty());
+        assertEquals("Changed", userRepository.findByLogin("changed").orElseThrow().getFirstName());
+    }
+}
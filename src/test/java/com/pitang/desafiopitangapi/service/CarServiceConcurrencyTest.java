@@ -0,0 +1,95 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.pitang.desafiopitangapi.TestEntities.car;
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:car-use-test;LOCK_TIMEOUT=10000")
+public class CarServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 25;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    private User user;
+    private List<String> carIds;
+
+    @BeforeEach
+    public void setUp() {
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = userRepository.save(user("test"));
+
+        carIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Car car = car(user, "ABC-123" + i);
+            car.setModel("Model " + i);
+            carIds.add(carRepository.save(car).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent use requests leave exactly one car in use and count every use")
+    public void testConcurrentUse() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                        String carId = carIds.get(ThreadLocalRandom.current().nextInt(carIds.size()));
+                        Car car = carService.useByUser(carId, user.getId());
+                        assertTrue(car.getUsage());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Car> cars = carRepository.findByUserIdOrderByUsageCountDescModelAsc(user.getId());
+        assertEquals(1, cars.stream().filter(Car::getUsage).count());
+        assertEquals(THREADS * CALLS_PER_THREAD, cars.stream().mapToInt(Car::getUsageCount).sum());
+    }
+
+    @Test
+    @DisplayName("Using a car of another user is rejected")
+    public void testUseCarOfAnotherUser() {
+        assertThrows(RuntimeException.class, () -> carService.useByUser(carIds.get(0), "another-user"));
+        assertTrue(carRepository.findByUserIdAndUsageTrue(user.getId()).isEmpty());
+    }
+}
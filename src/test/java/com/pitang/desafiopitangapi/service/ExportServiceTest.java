@@ -0,0 +1,93 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.desafiopitangapi.TestEntities;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:export-test")
+public class ExportServiceTest {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = user("export");
+        user.setBirthday(Date.from(LocalDate.of(1990, 5, 1).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        user.setCreatedAt(LocalDate.of(2024, 1, 2));
+        user = userRepository.save(user);
+
+        carRepository.save(car("ABC-1234", "Audi, \"A3\"", 1));
+        carRepository.save(car("DEF-5678", "BMW", 5));
+    }
+
+    @Test
+    @DisplayName("Cars are exported as CSV in fleet order, quoting values with separators or quotes")
+    public void testExportCarsAsCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportCars(user.getId(), ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,year,licensePlate,model,color,usage,usageCount", lines[0]);
+        assertTrue(lines[1].endsWith(",2020,DEF-5678,BMW,White,false,5"));
+        assertTrue(lines[2].endsWith(",2020,ABC-1234,\"Audi, \"\"A3\"\"\",White,false,1"));
+    }
+
+    @Test
+    @DisplayName("Users are exported as NDJSON with ISO dates and as CSV with empty nulls")
+    public void testExportUsers() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportUsers(ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, lines.length);
+        JsonNode row = new ObjectMapper().readTree(lines[0]);
+        assertEquals(user.getId(), row.get("id").asText());
+        assertEquals("1990-05-01", row.get("birthday").asText());
+        assertEquals("2024-01-02", row.get("createdAt").asText());
+        assertFalse(row.has("password"));
+
+        out.reset();
+        exportService.exportUsers(ExportFormat.CSV, out);
+        String[] csv = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(user.getId() + ",Test,User,export@test.com,1990-05-01,export,81900000000,2024-01-02,", csv[1]);
+    }
+
+    private Car car(String licensePlate, String model, int usageCount) {
+        Car car = TestEntities.car(user, licensePlate);
+        car.setModel(model);
+        car.setColor("White");
+        car.setUsageCount(usageCount);
+        return car;
+    }
+}
@@ -0,0 +1,97 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.domain.dto.CarDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FleetCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FleetCache fleetCache;
+    private AtomicInteger loads;
+    private Function<String, List<CarDTO>> loader;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fleetCache = new FleetCache(DataSize.ofMegabytes(1), Duration.ofMinutes(10), Duration.ofSeconds(5));
+        fleetCache.bindTo(meterRegistry);
+        loads = new AtomicInteger();
+        loader = userId -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(List.of(car("car-1", "PDV-0001"), car("car-2", "PDV-0002")));
+        };
+    }
+
+    @Test
+    @DisplayName("A fleet is loaded once and served from the cache while its ETag is the same")
+    public void testHitAtSameETag() {
+        List<CarDTO> first = fleetCache.get("user-1", "\"0\"", loader);
+        List<CarDTO> second = fleetCache.get("user-1", "\"0\"", loader);
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertThrows(UnsupportedOperationException.class, () -> second.add(new CarDTO()));
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "fleets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "fleets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("A fleet cached at an older ETag is reloaded and counted as a miss")
+    public void testMissAtNewETag() {
+        fleetCache.get("user-1", "\"0\"", loader);
+        fleetCache.get("user-1", "\"1\"", loader);
+        fleetCache.get("user-1", "\"1\"", loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", "fleets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("An invalidated fleet is loaded again")
+    public void testInvalidate() {
+        fleetCache.get("user-1", "\"0\"", loader);
+        fleetCache.get("user-2", "\"0\"", loader);
+        fleetCache.invalidate("user-1");
+        fleetCache.get("user-1", "\"0\"", loader);
+        fleetCache.get("user-2", "\"0\"", loader);
+        assertEquals(3, loads.get());
+
+        fleetCache.invalidateAll();
+        fleetCache.get("user-2", "\"0\"", loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    @DisplayName("The memory estimate of a fleet grows with its cars and their strings")
+    public void testEstimateBytes() {
+        int empty = FleetCache.estimateBytes("user-1", new FleetCache.Fleet("\"0\"", List.of()));
+        int one = FleetCache.estimateBytes("user-1", new FleetCache.Fleet("\"0\"", List.of(car("car-1", "PDV-0001"))));
+        int longModel = FleetCache.estimateBytes("user-1", new FleetCache.Fleet("\"0\"",
+                List.of(car("car-1", "PDV-0001", "A very long model name for a car"))));
+
+        assertTrue(empty >= FleetCache.ENTRY_BYTES);
+        assertTrue(one >= empty + FleetCache.CAR_BYTES);
+        assertTrue(longModel > one);
+        assertTrue(meterRegistry.get("fleet.cache.size").gauge().value() >= 0);
+    }
+
+    private static CarDTO car(String id, String licensePlate) {
+        return car(id, licensePlate, "Model");
+    }
+
+    private static CarDTO car(String id, String licensePlate, String model) {
+        return new CarDTO(id, 2020, licensePlate, model, "Black", false, 0, null);
+    }
+}
@@ -0,0 +1,245 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.DesafioPitangApiApplication;
+import com.pitang.desafiopitangapi.domain.dto.CarDTO;
+import com.pitang.desafiopitangapi.domain.dto.UserDTO;
+import com.pitang.desafiopitangapi.domain.model.Car;
+import com.pitang.desafiopitangapi.domain.model.ChangeLog;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.exceptions.InvalidTokenException;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static com.pitang.desafiopitangapi.TestEntities.car;
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two application contexts against the same embedded H2 database, as two nodes of a cluster would,
+ * and checks that the writes of one node evict the caches of the other.
+ */
+public class InvalidationBusTest {
+
+    private static final String DATABASE_URL = "jdbc:h2:mem:invalidation-bus-test;DB_CLOSE_DELAY=-1";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    public static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+        // The first poll only records the end of the log, so make sure it happened before the tests write to it.
+        nodeA.getBean(InvalidationBus.class).poll();
+        nodeB.getBean(InvalidationBus.class).poll();
+    }
+
+    @AfterAll
+    public static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    @DisplayName("A user updated on one node is evicted from the principal cache of the other")
+    public void testUserUpdateEvictsOtherNode() {
+        User user = saveUser("bus-update");
+        UserPrincipalCache principalsB = nodeB.getBean(UserPrincipalCache.class);
+        assertEquals(user.getId(), principalsB.get(user.getLogin()).id());
+
+        UserDTO changed = User.toDTO(user);
+        changed.setLogin(user.getLogin() + "-changed");
+        nodeA.getBean(UserService.class).update(user.getId(), changed);
+
+        awaitTrue(() -> {
+            try {
+                principalsB.get(user.getLogin());
+                return false;
+            } catch (InvalidTokenException e) {
+                return true;
+            }
+        });
+        assertEquals(user.getId(), principalsB.get(changed.getLogin()).id());
+    }
+
+    @Test
+    @DisplayName("A user updated on one node is evicted from the second-level cache of the other")
+    public void testUserUpdateEvictsOtherNodeEntityCache() {
+        User user = saveUser("bus-entity");
+        UserRepository usersB = nodeB.getBean(UserRepository.class);
+        assertEquals("Test", usersB.findById(user.getId()).orElseThrow().getFirstName());
+
+        UserDTO changed = User.toDTO(user);
+        changed.setFirstName("Changed");
+        nodeA.getBean(UserService.class).update(user.getId(), changed);
+
+        awaitTrue(() -> "Changed".equals(usersB.findById(user.getId()).orElseThrow().getFirstName()));
+    }
+
+    @Test
+    @DisplayName("Last logins written by one node do not evict the users cached by the other")
+    public void testLastLoginKeepsOtherNodeEntityCache() {
+        User user = saveUser("bus-login");
+        UserRepository usersB = nodeB.getBean(UserRepository.class);
+        assertNull(usersB.findById(user.getId()).orElseThrow().getLastLogin());
+
+        LastLoginRecorder recorderA = nodeA.getBean(LastLoginRecorder.class);
+        recorderA.record(user.getId());
+        recorderA.flush();
+        nodeB.getBean(InvalidationBus.class).poll();
+
+        assertTrue(secondLevelCache(nodeB).containsEntity(User.class, user.getId()));
+        assertEquals(LocalDate.now(),
+                nodeA.getBean(UserRepository.class).findById(user.getId()).orElseThrow().getLastLogin());
+    }
+
+    @Test
+    @DisplayName("A car registered on one node evicts the owner's fleet cached by the other")
+    public void testCarRegistrationEvictsOtherNode() {
+        User user = saveUser("bus-fleet");
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, List<CarDTO>> loader = userId -> {
+            loads.incrementAndGet();
+            return List.of();
+        };
+        FleetCache fleetsB = nodeB.getBean(FleetCache.class);
+        fleetsB.get(user.getId(), "\"0\"", loader);
+
+        nodeA.getBean(CarService.class).register(car(user, randomPlate()), null);
+
+        awaitTrue(() -> {
+            fleetsB.get(user.getId(), "\"0\"", loader);
+            return loads.get() > 1;
+        });
+    }
+
+    @Test
+    @DisplayName("A car used on one node is evicted from the second-level cache of the other, and its siblings are kept")
+    public void testCarUseEvictsOnlyThatCarOnOtherNode() {
+        User user = saveUser("bus-car");
+        CarService carsA = nodeA.getBean(CarService.class);
+        Car used = carsA.register(car(user, randomPlate()), null);
+        Car other = carsA.register(car(user, randomPlate()), null);
+        CarRepository carsB = nodeB.getBean(CarRepository.class);
+        carsB.findById(used.getId()).orElseThrow();
+        carsB.findById(other.getId()).orElseThrow();
+        Cache cacheB = secondLevelCache(nodeB);
+        assertTrue(cacheB.containsEntity(Car.class, used.getId()));
+
+        carsA.useByUser(used.getId(), user.getId());
+
+        awaitTrue(() -> !cacheB.containsEntity(Car.class, used.getId()));
+        assertTrue(cacheB.containsEntity(Car.class, other.getId()));
+        assertTrue(carsB.findById(used.getId()).orElseThrow().getUsage());
+    }
+
+    @Test
+    @DisplayName("A change committed after a later one was read is still applied")
+    public void testLateCommitIsApplied() throws Exception {
+        AtomicInteger lateLoads = new AtomicInteger();
+        AtomicInteger earlyLoads = new AtomicInteger();
+        FleetCache fleetsB = nodeB.getBean(FleetCache.class);
+        fleetsB.get("late-user", "\"0\"", userId -> count(lateLoads));
+        fleetsB.get("early-user", "\"0\"", userId -> count(earlyLoads));
+
+        InvalidationBus busA = nodeA.getBean(InvalidationBus.class);
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> lateTransaction = CompletableFuture.runAsync(() ->
+                nodeA.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+                    busA.publish(ChangeLog.Type.FLEET, "late-user", null);
+                    appended.countDown();
+                    await(commit);
+                }));
+        assertTrue(appended.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        busA.publish(ChangeLog.Type.FLEET, "early-user", null);
+
+        // Node B reads the later sequence while the earlier one is still uncommitted.
+        awaitTrue(() -> {
+            fleetsB.get("early-user", "\"0\"", userId -> count(earlyLoads));
+            return earlyLoads.get() > 1;
+        });
+        fleetsB.get("late-user", "\"0\"", userId -> count(lateLoads));
+        assertEquals(1, lateLoads.get());
+
+        commit.countDown();
+        lateTransaction.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        awaitTrue(() -> {
+            fleetsB.get("late-user", "\"0\"", userId -> count(lateLoads));
+            return lateLoads.get() > 1;
+        });
+    }
+
+    private static User saveUser(String prefix) {
+        String login = prefix + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return nodeA.getBean(UserRepository.class).save(user(login));
+    }
+
+    private static String randomPlate() {
+        return "BUS-" + (1000 + (int) (Math.random() * 9000));
+    }
+
+    private static Cache secondLevelCache(ConfigurableApplicationContext node) {
+        return node.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache();
+    }
+
+    private static List<CarDTO> count(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return List.of();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline)
+                fail("Condition not met within " + TIMEOUT);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(DesafioPitangApiApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=" + DATABASE_URL,
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "api.change-log.poll-interval=PT0.05S")
+                // application.properties wins over default properties, so the port is passed as an argument.
+                .run("--management.server.port=0");
+    }
+}
@@ -0,0 +1,99 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.domain.dto.UserVersionDTO;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:last-login-test",
+        "api.last-login.flush-interval=PT1H",
+        "api.last-login.max-pending=3"
+})
+public class LastLoginRecorderTest {
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @BeforeEach
+    public void setUp() {
+        lastLoginRecorder.flush();
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Logins are buffered, coalesced per user and written together on flush")
+    public void testFlush() {
+        User first = userRepository.save(user("first"));
+        User second = userRepository.save(user("second"));
+
+        lastLoginRecorder.record(first.getId());
+        lastLoginRecorder.record(first.getId());
+        lastLoginRecorder.record(second.getId());
+
+        assertNull(userRepository.findById(first.getId()).orElseThrow().getLastLogin());
+        assertEquals(2, lastLoginRecorder.flush());
+        assertEquals(LocalDate.now(), userRepository.findById(first.getId()).orElseThrow().getLastLogin());
+        assertEquals(LocalDate.now(), userRepository.findById(second.getId()).orElseThrow().getLastLogin());
+        assertEquals(0, lastLoginRecorder.flush());
+    }
+
+    @Test
+    @DisplayName("Reaching the maximum of pending users triggers a flush in the background")
+    public void testFlushOnMaxPending() throws InterruptedException {
+        String[] ids = new String[3];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = userRepository.save(user("user" + i)).getId();
+            lastLoginRecorder.record(ids[i]);
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (userRepository.findById(ids[2]).orElseThrow().getLastLogin() == null
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        for (String id : ids) {
+            assertEquals(LocalDate.now(), userRepository.findById(id).orElseThrow().getLastLogin());
+        }
+    }
+
+    @Test
+    @DisplayName("A login written while the user is being edited changes the ETag but not the version")
+    public void testFlushDuringEdit() {
+        User user = userRepository.save(user("editing"));
+        String eTag = userRepository.findVersionById(user.getId()).orElseThrow().eTag();
+
+        // The user is read for an edit, then a login is written before the edit is saved.
+        User edited = userRepository.findById(user.getId()).orElseThrow();
+        lastLoginRecorder.record(user.getId());
+        assertEquals(1, lastLoginRecorder.flush());
+        UserVersionDTO afterLogin = userRepository.findVersionById(user.getId()).orElseThrow();
+        assertEquals(edited.getVersion(), afterLogin.version());
+        assertNotEquals(eTag, afterLogin.eTag());
+
+        edited.setFirstName("Edited");
+        User saved = assertDoesNotThrow(() -> userRepository.save(edited));
+
+        User reloaded = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals("Edited", reloaded.getFirstName());
+        assertEquals(LocalDate.now(), reloaded.getLastLogin());
+        assertEquals(saved.getVersion(), reloaded.getVersion());
+    }
+}
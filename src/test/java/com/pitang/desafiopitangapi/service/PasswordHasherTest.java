@@ -0,0 +1,134 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.config.PasswordConfig;
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHasher passwordHasher;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        PasswordConfig config = new PasswordConfig(5, Duration.ofMillis(100), 4, 12);
+        passwordHasher = new PasswordHasher(config.passwordEncoder(), config, meterRegistry, 1, 1, Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Hashes of a lower strength, or not BCrypt at all, need a rehash; stronger ones are kept")
+    public void testNeedsRehash() {
+        assertFalse(passwordHasher.needsRehash(new BCryptPasswordEncoder(5).encode("password123")));
+        assertTrue(passwordHasher.needsRehash(new BCryptPasswordEncoder(4).encode("password123")));
+        assertFalse(passwordHasher.needsRehash(new BCryptPasswordEncoder(6).encode("password123")));
+        assertTrue(passwordHasher.needsRehash("plain"));
+        assertTrue(passwordHasher.needsRehash(null));
+    }
+
+    @Test
+    @DisplayName("Every hash is recorded in the latency histogram")
+    public void testHashLatencyRecorded() {
+        String hash = passwordHasher.encode("password123").join();
+
+        assertTrue(passwordHasher.matches("password123", hash).join());
+        assertEquals(1, meterRegistry.get("password.hash").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    @DisplayName("With the thread busy and the queue full, a hash is refused at once with 503")
+    public void testRejectedWhenSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordConfig config = new PasswordConfig(5, Duration.ofMillis(100), 4, 12);
+        PasswordHasher blocked = new PasswordHasher(new BlockingEncoder(started, release), config, meterRegistry,
+                1, 1, Duration.ofMillis(100));
+        try {
+            CompletableFuture<String> running = blocked.encode("running");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = blocked.encode("queued");
+
+            AtomicInteger lookups = new AtomicInteger();
+            BusinessException encodeRefused = assertThrows(BusinessException.class, () -> blocked.encode("refused"));
+            BusinessException verifyRefused = assertThrows(BusinessException.class, () -> blocked.verify("refused",
+                    () -> Optional.of(lookups.incrementAndGet()), String::valueOf));
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, encodeRefused.getStatus());
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, verifyRefused.getStatus());
+            assertEquals(0, lookups.get());
+            assertEquals(2, meterRegistry.get("password.hash.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("running", running.get(5, TimeUnit.SECONDS));
+            assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+            assertEquals("accepted", blocked.encode("accepted").get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            blocked.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("The account is looked up on the pool and returned only if the password matches")
+    public void testVerify() {
+        String hash = passwordHasher.encode("password123").join();
+
+        assertEquals(Optional.of(hash), passwordHasher.verify("password123", () -> Optional.of(hash), h -> h).join());
+        assertEquals(Optional.empty(), passwordHasher.verify("wrong", () -> Optional.of(hash), h -> h).join());
+        assertEquals(Optional.empty(), passwordHasher.verify("password123", Optional::<String>empty, h -> h).join());
+        assertTrue(passwordHasher.verify("password123", () -> Optional.of(Thread.currentThread().getName()), h -> hash)
+                .join().orElseThrow().startsWith("password-hash-"));
+    }
+
+    /**
+     * Returns the raw password as its hash, blocking until released.
+     */
+    private static final class BlockingEncoder implements PasswordEncoder {
+
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        private BlockingEncoder(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.DesafioPitangApiApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two application contexts against the same embedded H2 database, as two nodes of a cluster would.
+ */
+public class SchedulerLockServiceTest {
+
+    private static final String DATABASE_URL = "jdbc:h2:mem:scheduler-lock-test;DB_CLOSE_DELAY=-1";
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    public static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    public static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    @DisplayName("Only one node runs a job triggered at the same time on both")
+    public void testOnlyOneNodeRuns() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<OptionalInt>> results = List.of(
+                    executor.submit(() -> run(nodeA, "concurrent-job", start, executions)),
+                    executor.submit(() -> run(nodeB, "concurrent-job", start, executions)));
+            start.countDown();
+
+            int ran = 0;
+            for (Future<OptionalInt> result : results) {
+                if (result.get().isPresent())
+                    ran++;
+            }
+            assertEquals(1, ran);
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Object> lock = nodeA.getBean(JdbcTemplate.class).queryForMap(
+                "SELECT * FROM SCHEDULER_LOCK WHERE LOCK_NAME = 'concurrent-job'");
+        assertEquals(7, ((Number) lock.get("LAST_ROWS_AFFECTED")).intValue());
+        assertNotNull(lock.get("LAST_RUN_AT"));
+        assertNotNull(lock.get("LAST_DURATION_MS"));
+    }
+
+    @Test
+    @DisplayName("Another node runs the job once the lease is released")
+    public void testLockIsReleased() {
+        SchedulerLockService lockA = nodeA.getBean(SchedulerLockService.class);
+        SchedulerLockService lockB = nodeB.getBean(SchedulerLockService.class);
+
+        assertEquals(OptionalInt.of(1), lockA.runExclusively("released-job", Duration.ofMinutes(1), Duration.ZERO, () -> 1));
+        assertEquals(OptionalInt.of(2), lockB.runExclusively("released-job", Duration.ofMinutes(1), Duration.ZERO, () -> 2));
+    }
+
+    @Test
+    @DisplayName("The lock is kept for the minimum lease after the job ends")
+    public void testLockIsKeptAtLeast() {
+        SchedulerLockService lockA = nodeA.getBean(SchedulerLockService.class);
+        SchedulerLockService lockB = nodeB.getBean(SchedulerLockService.class);
+
+        assertTrue(lockA.runExclusively("kept-job", Duration.ofMinutes(1), Duration.ofMinutes(1), () -> 1).isPresent());
+        assertTrue(lockB.runExclusively("kept-job", Duration.ofMinutes(1), Duration.ofMinutes(1), () -> 1).isEmpty());
+    }
+
+    private static OptionalInt run(ConfigurableApplicationContext node, String job, CountDownLatch start,
+                                   AtomicInteger executions) throws InterruptedException {
+        start.await();
+        return node.getBean(SchedulerLockService.class).runExclusively(job, Duration.ofMinutes(1), Duration.ofMinutes(1), () -> {
+            executions.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 7;
+        });
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(DesafioPitangApiApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=" + DATABASE_URL,
+                        "spring.jpa.hibernate.ddl-auto=update")
+                // application.properties wins over default properties, so the port is passed as an argument.
+                .run("--management.server.port=0");
+    }
+}
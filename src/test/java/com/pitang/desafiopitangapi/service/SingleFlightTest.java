@@ -0,0 +1,162 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Concurrent callers of the same key share one load and its result")
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(Duration.ofSeconds(10));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, String> loader = key -> {
+            loads.incrementAndGet();
+            await(release);
+            return "value of " + key;
+        };
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.load("login", loader)));
+        }
+        awaitCount("collapsed", CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("value of login", result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, count("executed"));
+        assertEquals(0, meterRegistry.get("single.flight.in.flight").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Callers waiting longer than the timeout get 503")
+    public void testTimeout() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.load("login", key -> {
+            await(release);
+            return "value";
+        }));
+        awaitGauge(1);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> singleFlight.load("login", key -> "other"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        assertEquals(1, count("timeout"));
+
+        release.countDown();
+        assertEquals("value", leader.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("The exception of a shared load is thrown to every caller, and the next call loads again")
+    public void testFailureIsShared() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.load("login", key -> {
+            await(release);
+            throw new IllegalStateException("database down");
+        }));
+        awaitGauge(1);
+        Future<String> follower = executor.submit(() -> singleFlight.load("login", key -> "other"));
+        awaitCount("collapsed", 1);
+        release.countDown();
+
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+        ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(10, TimeUnit.SECONDS));
+        assertEquals("database down", leaderError.getCause().getMessage());
+        assertEquals("database down", followerError.getCause().getMessage());
+        assertEquals("value", singleFlight.load("login", key -> "value"));
+    }
+
+    @Test
+    @DisplayName("A forgotten load is not shared with later callers")
+    public void testForget() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.load("login", key -> {
+            await(release);
+            return "old";
+        }));
+        awaitGauge(1);
+
+        singleFlight.forget("login");
+        assertEquals("new", singleFlight.load("login", key -> "new"));
+
+        release.countDown();
+        assertEquals("old", leader.get(10, TimeUnit.SECONDS));
+        assertEquals(2, count("executed"));
+    }
+
+    private SingleFlight<String, String> singleFlight(Duration timeout) {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", timeout);
+        singleFlight.bindTo(meterRegistry);
+        return singleFlight;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("single.flight.loads").tag("result", result).functionCounter().count();
+    }
+
+    private void awaitCount(String result, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count(result) < expected) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for " + expected + " " + result + " loads");
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitGauge(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("single.flight.in.flight").gauge().value() < expected) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the load to start");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
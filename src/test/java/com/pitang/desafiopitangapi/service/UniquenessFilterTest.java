@@ -0,0 +1,96 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.exceptions.BusinessException;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+
+import static com.pitang.desafiopitangapi.TestEntities.car;
+import static com.pitang.desafiopitangapi.TestEntities.user;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:uniqueness-filter-test")
+public class UniquenessFilterTest {
+
+    @Autowired
+    private UniquenessFilter uniquenessFilter;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = userRepository.save(user("test"));
+        carRepository.save(car(user, "ABC-1234"));
+        uniquenessFilter.rebuildAll();
+    }
+
+    @Test
+    @DisplayName("Bloom filter never misses an added value and stays close to the configured false-positive rate")
+    public void testBloomFilter() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("value-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("value-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain("value-" + i))
+                falsePositives++;
+        }
+        assertTrue(falsePositives < 2_000, () -> "Too many false positives");
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+        assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    @DisplayName("Existing values are found and new values are answered without a query")
+    public void testExists() {
+        double absentBefore = checks("license_plate", "absent");
+
+        assertTrue(uniquenessFilter.licensePlateExists("ABC-1234"));
+        assertTrue(uniquenessFilter.loginExists("test"));
+        assertTrue(uniquenessFilter.emailExists("test@test.com"));
+        assertFalse(uniquenessFilter.licensePlateExists("XYZ-9876"));
+
+        assertEquals(absentBefore + 1, checks("license_plate", "absent"));
+    }
+
+    @Test
+    @DisplayName("Registered plates are added to the filter and duplicates are still rejected")
+    public void testRegisterRecordsPlate() {
+        carService.register(car(user, "DEF-5678"), null);
+
+        assertTrue(uniquenessFilter.licensePlateExists("DEF-5678"));
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> carService.register(car(user, "DEF-5678"), null));
+        assertEquals("License plate already exists", exception.getMessage());
+    }
+
+    private double checks(String field, String result) {
+        return meterRegistry.get("uniqueness.filter.checks").tag("field", field).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,127 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.desafiopitangapi.repository.CarRepository;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-import-test",
+        "api.import.chunk-size=2"
+})
+public class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Each line is reported in order and only valid, unique records are saved")
+    public void testImportUsers() throws Exception {
+        String body = String.join("\n",
+                user("first", "first@test.com", "ABC-1234"),
+                user("second", "invalid-email", "DEF-5678"),
+                "",
+                user("first", "other@test.com", "GHI-9012"),
+                "{not json",
+                "null",
+                user("third", "third@test.com", "ABC-1234"),
+                user("fourth", "fourth@test.com", "JKL3M45"));
+        Timer encodeTimer = meterRegistry.get("password.hash").tag("operation", "encode").timer();
+        long hashes = encodeTimer.count();
+
+        List<JsonNode> results = importUsers(body);
+
+        assertEquals(7, results.size());
+        assertResult(results.get(0), 1, "created");
+        assertResult(results.get(1), 2, "rejected");
+        assertEquals("email", results.get(1).get("errors").get(0).get("field").asText());
+        assertResult(results.get(2), 4, "rejected");
+        assertEquals("Login already exists", results.get(2).get("errors").get(0).get("message").asText());
+        assertResult(results.get(3), 5, "rejected");
+        assertResult(results.get(4), 6, "rejected");
+        assertEquals("Malformed JSON", results.get(4).get("errors").get(0).get("message").asText());
+        assertResult(results.get(5), 7, "rejected");
+        assertEquals("License plate already exists", results.get(5).get("errors").get(0).get("message").asText());
+        assertResult(results.get(6), 8, "created");
+
+        assertEquals(2, userRepository.count());
+        assertEquals(2, carRepository.count());
+        String password = userRepository.findByLogin("fourth").orElseThrow().getPassword();
+        assertTrue(passwordEncoder.matches("password123", password));
+        // Only the records that passed the checks are hashed, on the shared hashing pool.
+        assertEquals(hashes + 2, encodeTimer.count());
+    }
+
+    @Test
+    @DisplayName("When the insert of a chunk fails, its records are saved one by one and only the failing one is rejected")
+    public void testChunkFallback() throws Exception {
+        String body = String.join("\n",
+                user("valid", "valid@test.com", "ABC-1234"),
+                user("long", "long@test.com", "DEF-5678").replace("\"Test\"", "\"" + "A".repeat(300) + "\""));
+
+        List<JsonNode> results = importUsers(body);
+
+        assertEquals(2, results.size());
+        assertResult(results.get(0), 1, "created");
+        assertResult(results.get(1), 2, "rejected");
+        assertTrue(userRepository.findByLogin("valid").isPresent());
+        assertTrue(userRepository.findByLogin("long").isEmpty());
+        assertEquals(1, carRepository.count());
+    }
+
+    private List<JsonNode> importUsers(String body) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        userImportService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), output);
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(mapper.readTree(line));
+        }
+        return results;
+    }
+
+    private static void assertResult(JsonNode result, long line, String status) {
+        assertEquals(line, result.get("line").asLong());
+        assertEquals(status, result.get("status").asText());
+    }
+
+    private static String user(String login, String email, String licensePlate) {
+        return "{\"firstName\":\"Test\",\"lastName\":\"User\",\"email\":\"" + email + "\",\"birthday\":\"1990-05-01\","
+                + "\"login\":\"" + login + "\",\"password\":\"password123\",\"phone\":\"81900000000\","
+                + "\"cars\":[{\"year\":2020,\"licensePlate\":\"" + licensePlate + "\",\"model\":\"Audi\",\"color\":\"White\"}]}";
+    }
+}
@@ -0,0 +1,113 @@
+package com.pitang.desafiopitangapi.service;
+
+import com.pitang.desafiopitangapi.config.UserPrincipal;
+import com.pitang.desafiopitangapi.domain.model.User;
+import com.pitang.desafiopitangapi.exceptions.InvalidTokenException;
+import com.pitang.desafiopitangapi.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserPrincipalCacheTest {
+
+    private UserRepository userRepository;
+    private UserPrincipalCache cache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository = Mockito.mock(UserRepository.class);
+        cache = new UserPrincipalCache(userRepository, 100, Duration.ofMinutes(10), Duration.ofSeconds(5));
+        meterRegistry = new SimpleMeterRegistry();
+        cache.bindTo(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("A user is loaded once and then served from the cache as a principal")
+    public void testHit() {
+        Mockito.when(userRepository.findByLogin("test")).thenReturn(Optional.of(user("id-1", 0L)));
+
+        UserPrincipal first = cache.get("test");
+        UserPrincipal second = cache.get("test");
+
+        assertSame(first, second);
+        assertEquals(new UserPrincipal("id-1", "test"), first);
+        Mockito.verify(userRepository, Mockito.times(1)).findByLogin("test");
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "user.principals").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("An unknown login is rejected as an invalid token")
+    public void testUnknownLogin() {
+        Mockito.when(userRepository.findByLogin("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(InvalidTokenException.class, () -> cache.get("ghost"));
+    }
+
+    @Test
+    @DisplayName("An invalidated user is loaded again, by login or by an older version of its ID")
+    public void testInvalidate() {
+        Mockito.when(userRepository.findByLogin("test"))
+                .thenReturn(Optional.of(user("id-1", 0L)), Optional.of(user("id-1", 1L)), Optional.of(user("id-1", 2L)));
+
+        cache.get("test");
+        cache.invalidate("test");
+        cache.get("test");
+        Mockito.verify(userRepository, Mockito.times(2)).findByLogin("test");
+
+        // The cached user is already at version 1.
+        cache.invalidateById("id-1", 1L);
+        cache.get("test");
+        Mockito.verify(userRepository, Mockito.times(2)).findByLogin("test");
+        cache.invalidateById("id-1", 2L);
+        cache.get("test");
+        Mockito.verify(userRepository, Mockito.times(3)).findByLogin("test");
+    }
+
+    @Test
+    @DisplayName("A load that overlaps an invalidation does not keep the user it read")
+    public void testInvalidationDuringLoad() {
+        Mockito.when(userRepository.findByLogin("test")).thenAnswer(invocation -> {
+            // An update commits and invalidates while the old row is being read.
+            cache.invalidate("test");
+            return Optional.of(user("id-1", 0L));
+        }).thenReturn(Optional.of(user("id-1", 1L)));
+
+        cache.get("test");
+        cache.get("test");
+        Mockito.verify(userRepository, Mockito.times(2)).findByLogin("test");
+    }
+
+    @Test
+    @DisplayName("A caller arriving after an invalidation by ID does not share the load in flight")
+    public void testInvalidationByIdDetachesLoad() {
+        Mockito.when(userRepository.findByLogin("test")).thenAnswer(invocation -> {
+            if (Mockito.mockingDetails(userRepository).getInvocations().size() == 1) {
+                // Another node changes the user while the old row is being read, and a new request arrives.
+                cache.invalidateById("id-1", null);
+                // Would wait for the load in flight, which is this one, if it were still shared.
+                assertEquals(new UserPrincipal("id-1", "test"), cache.get("test"));
+            }
+            return Optional.of(user("id-1", 0L));
+        });
+
+        cache.get("test");
+        Mockito.verify(userRepository, Mockito.times(2)).findByLogin("test");
+    }
+
+    private static User user(String id, Long version) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin("test");
+        user.setVersion(version);
+        return user;
+    }
+}